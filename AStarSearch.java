@@ -0,0 +1,238 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answers each query with an A* search from the first word towards the second, without any
+ * precomputation.
+ *
+ * Every edge of the graph is a single edit, see {@link WordProcessor#isAdjacent(String, String)},
+ * so the edit distance between a word and the target is never more than the number of edges
+ * between them, and it changes by at most 1 along an edge. It is therefore an admissible and
+ * consistent estimate of the remaining distance: vertices are taken from a binary heap in order
+ * of their distance so far plus their estimate, the first time a vertex is taken its distance is
+ * final, and words far from the target in spelling are only expanded if nothing closer leads
+ * there. The distances match a full breadth first search.
+ *
+ * The estimates are computed with an {@link EditDistance} set to the target once per query,
+ * once per vertex reached, and a neighbor's estimate only exactly up to 1 more than its
+ * predecessor's, which is as far as it can be. Each thread keeps its own scratch arrays, stamped
+ * with the current query's generation like {@link BidirectionalSearch}'s, so the arrays never
+ * need clearing.
+ */
+class AStarSearch implements ShortestPaths {
+
+    /**
+     * Largest estimate used. A smaller one is still a lower bound, and it keeps the heap keys
+     * within their bits.
+     */
+    private static final int MAX_ESTIMATE = Short.MAX_VALUE;
+
+    // the graph to search
+    private IntGraph graph;
+    // scratch arrays of the calling thread
+    private ThreadLocal<Scratch> scratch;
+
+    /**
+     * Creates a search over graph
+     *
+     * @param graph the graph to search
+     */
+    AStarSearch(IntGraph graph) {
+        this.graph = graph;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+    }
+
+    /**
+     * Per-thread state of a search: generation stamps of the reached and the expanded vertices,
+     * distances, estimates, predecessors, the heap and the edit distances to the target
+     */
+    private static class Scratch {
+        private int[] reached;
+        private int[] expanded;
+        private int[] distance;
+        private int[] estimate;
+        private int[] predecessor;
+        // a binary min-heap of keys, see key()
+        private long[] heap;
+        private int heapSize;
+        private int generation;
+        private EditDistance editDistance;
+
+        private Scratch(int size) {
+            this.reached = new int[size];
+            this.expanded = new int[size];
+            this.distance = new int[size];
+            this.estimate = new int[size];
+            this.predecessor = new int[size];
+            this.heap = new long[Math.max(16, size)];
+            this.editDistance = new EditDistance();
+        }
+
+        /**
+         * Starts a new query, so nothing stamped by an earlier query counts as reached
+         */
+        private int nextGeneration() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                Arrays.fill(expanded, 0);
+                generation = 1;
+            }
+            heapSize = 0;
+            return generation;
+        }
+
+        /**
+         * Adds a key to the heap, growing it if it is full
+         */
+        private void push(long key) {
+            if (heapSize == heap.length)
+                heap = Arrays.copyOf(heap, 2 * heap.length);
+            int i = heapSize++;
+            while (i > 0 && heap[(i - 1) >>> 1] > key) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = key;
+        }
+
+        /**
+         * Removes and returns the smallest key of a heap that is not empty
+         */
+        private long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int i = 0;
+            for (int child = 1; child < heapSize; child = 2 * i + 1) {
+                if (child + 1 < heapSize && heap[child + 1] < heap[child])
+                    child++;
+                if (heap[child] >= last)
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+
+    @Override
+    public int getDistance(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        if (source < 0 || target < 0 || !graph.connected(source, target))
+            return SearchTree.NONE;
+        Scratch s = scratch.get();
+        return search(s, source, target) ? s.distance[target] : SearchTree.NONE;
+    }
+
+    @Override
+    public List<String> getPath(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        if (source < 0 || target < 0 || !graph.connected(source, target))
+            return null;
+        Scratch s = scratch.get();
+        if (!search(s, source, target))
+            return null;
+        ArrayList<String> path = new ArrayList<String>();
+        for (int node = target; node != SearchTree.NONE; node = s.predecessor[node])
+            path.add(graph.word(node));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Runs one breadth first search from the source for all the targets, rather than an A*
+     * search per target, and none if no target is in the source's component
+     */
+    @Override
+    public void getDistances(String source, String[] targets, int[] results) {
+        int id = graph.id(source);
+        boolean search = id >= 0 && SearchTree.reachesAny(graph, id, targets);
+        SearchTree.distances(graph, search ? SearchTree.search(graph, id).distance : null,
+                        targets, results);
+    }
+
+    /**
+     * Runs one breadth first search from the source for all the targets, rather than an A*
+     * search per target, and none if no target is in the source's component
+     */
+    @Override
+    public List<List<String>> getPaths(String source, String[] targets) {
+        int id = graph.id(source);
+        if (id < 0 || !SearchTree.reachesAny(graph, id, targets))
+            return SearchTree.paths(graph, null, null, targets);
+        SearchTree tree = SearchTree.search(graph, id);
+        return SearchTree.paths(graph, tree.distance, tree.predecessor, targets);
+    }
+
+    /**
+     * Nothing is stored between queries, only per-thread scratch space
+     */
+    @Override
+    public long getFootprint() {
+        return 0;
+    }
+
+    /**
+     * Searches from source until target is expanded. On success the scratch's distances and
+     * predecessors hold a shortest path to target.
+     *
+     * @param s scratch of the calling thread
+     * @param source id of the first word
+     * @param target id of the second word
+     * @return true if target is reachable from source
+     */
+    private boolean search(Scratch s, int source, int target) {
+        int generation = s.nextGeneration();
+        s.editDistance.setTarget(graph.word(target));
+        s.reached[source] = generation;
+        s.distance[source] = 0;
+        s.predecessor[source] = SearchTree.NONE;
+        s.estimate[source] = s.editDistance.distance(graph.word(source), MAX_ESTIMATE);
+        s.push(key(s.estimate[source], 0, source));
+
+        while (s.heapSize > 0) {
+            int node = (int) s.pop();
+            // a vertex is pushed again each time it gets closer, and only its first pop counts
+            if (s.expanded[node] == generation)
+                continue;
+            s.expanded[node] = generation;
+            if (node == target)
+                return true;
+            int next = s.distance[node] + 1;
+            if (next > Short.MAX_VALUE)
+                throw new IllegalStateException("shortest path longer than " + Short.MAX_VALUE);
+            for (int successor : graph.neighbors(node)) {
+                if (s.reached[successor] != generation) {
+                    s.reached[successor] = generation;
+                    // one edit away from node, so at most 1 further from the goal
+                    s.estimate[successor] = s.editDistance.distance(graph.word(successor),
+                                    Math.min(s.estimate[node] + 1, MAX_ESTIMATE));
+                } else if (s.expanded[successor] == generation || next >= s.distance[successor]) {
+                    continue;
+                }
+                s.distance[successor] = next;
+                s.predecessor[successor] = node;
+                s.push(key(next + s.estimate[successor], next, successor));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs a heap entry so keys order by the estimated length of the path through the vertex,
+     * and among equal estimates the vertex furthest from the source first, which is the closest
+     * to the target
+     *
+     * @param total distance so far plus estimate, below 2^16
+     * @param distance distance so far, at most Short.MAX_VALUE
+     * @param vertex id of the vertex
+     * @return long the key
+     */
+    private static long key(int total, int distance, int vertex) {
+        return ((long) total << 47) | ((long) (Short.MAX_VALUE - distance) << 32) | vertex;
+    }
+}
@@ -0,0 +1,499 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures the time and the heap allocation of the word ladder operations, so a change that
+ * slows them down shows up before it is merged.
+ *
+ * Every benchmark runs on word_list.txt and on synthetic dictionaries of several sizes. Each
+ * one is first run for a few warmup iterations, so the JIT has compiled it, and then for a few
+ * measured iterations of at least ITERATION_MILLIS each. For every benchmark it prints:
+ * 	1. ns/op: mean time per operation
+ * 	2. B/op: bytes allocated by the benchmark thread per operation
+ * 	3. gc.count and gc.ms: collections and collection time during the measured iterations
+ *
+ * Usage: java Benchmarks [name filter], e.g. "java Benchmarks populateGraph" runs only the
+ * benchmarks whose name contains populateGraph. Run with a fixed heap (-Xms and -Xmx equal) so
+ * the gc columns are comparable between runs.
+ */
+public class Benchmarks {
+
+    /**
+     * Number of iterations run before measuring, and measured
+     */
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    /**
+     * Shortest time an iteration runs for; slow operations run once per iteration
+     */
+    private static final long ITERATION_MILLIS = 500;
+
+    /**
+     * Number of words in each synthetic dictionary
+     */
+    private static final int[] SYNTHETIC_SIZES = { 1000, 4000, 16000 };
+
+    /**
+     * Largest dictionary the all-pairs precomputation and the queries are measured on, since
+     * the tables grow with the square of the number of words
+     */
+    private static final int MAX_PRECOMPUTED_SIZE = 4000;
+
+    /**
+     * Number of word pairs sampled for the adjacency and query benchmarks
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * Results are folded into this field so the JIT cannot drop the work as unused
+     */
+    private static volatile long sink;
+
+    /**
+     * One operation of a benchmark
+     */
+    private interface Operation {
+        /**
+         * Runs the operation once
+         *
+         * @return long any value depending on the result, folded into the sink
+         */
+        long run();
+    }
+
+    /**
+     * A fixture shared by several benchmarks, built the first time one of them runs
+     *
+     * @param <T> type of the fixture
+     */
+    private static class Fixture<T> {
+        // builds the fixture
+        private Supplier<T> builder;
+        // the fixture, null until it is built
+        private T value;
+
+        private Fixture(Supplier<T> builder) {
+            this.builder = builder;
+        }
+
+        /**
+         * Returns the fixture, building it on the first call
+         *
+         * @return T the fixture
+         */
+        private T get() {
+            if (value == null)
+                value = builder.get();
+            return value;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String filter = args.length > 0 ? args[0] : "";
+        System.out.printf("%-42s %-16s %14s %12s %9s %9s%n", "Benchmark", "Dictionary", "ns/op",
+                        "B/op", "gc.count", "gc.ms");
+
+        run("word_list.txt", "word_list.txt", filter);
+        for (int size : SYNTHETIC_SIZES)
+            run("synthetic-" + size, syntheticDictionary(size), filter);
+    }
+
+    /**
+     * Runs every benchmark matching filter on one dictionary. The fixtures are built the first
+     * time a benchmark that uses them runs, so a filter skips building the ones it does not need.
+     *
+     * @param name name of the dictionary in the results
+     * @param dictionary file path of the dictionary
+     * @param filter only benchmarks whose name contains this are run
+     */
+    private static void run(String name, String dictionary, String filter) throws IOException {
+        List<String> words = WordProcessor.getWordStream(dictionary).distinct()
+                        .collect(Collectors.toList());
+
+        // WordProcessor.isAdjacent on pairs of equal and of different lengths
+        bench("WordProcessor.isAdjacent.sameLength", name, filter, () -> {
+            String[][] pairs = samplePairs(words, new Random(words.size()), 0);
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] pair = pairs[i++ & (SAMPLE_SIZE - 1)];
+                    return WordProcessor.isAdjacent(pair[0], pair[1]) ? 1 : 0;
+                }
+            };
+        });
+        bench("WordProcessor.isAdjacent.differentLength", name, filter, () -> {
+            String[][] pairs = samplePairs(words, new Random(words.size()), 1);
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] pair = pairs[i++ & (SAMPLE_SIZE - 1)];
+                    return WordProcessor.isAdjacent(pair[0], pair[1]) ? 1 : 0;
+                }
+            };
+        });
+
+        // one word against every word of its length, one char at a time and in packed lanes
+        Fixture<String[]> block = new Fixture<String[]>(() -> words.stream()
+                        .collect(Collectors.groupingBy(String::length)).values().stream()
+                        .max(Comparator.comparing(List::size)).get().toArray(new String[0]));
+        bench("WordProcessor.findAdjacent.block", name, filter, () -> {
+            String[] blockWords = block.get();
+            int[] matches = new int[blockWords.length];
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String word = blockWords[i++ % blockWords.length];
+                    return WordProcessor.findAdjacent(word, blockWords, 0, blockWords.length,
+                                    matches);
+                }
+            };
+        });
+        bench("PackedWords.findAdjacent.block", name, filter, () -> {
+            String[] blockWords = block.get();
+            PackedWords packed = new PackedWords(Arrays.asList(blockWords));
+            int[] matches = new int[blockWords.length];
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    return packed.findAdjacent(blockWords[i++ % blockWords.length], matches);
+                }
+            };
+        });
+
+        // Graph: building it from known edges, and looking up neighbors and edges
+        Fixture<List<String[]>> edges = new Fixture<List<String[]>>(() -> {
+            EdgeFinder finder = new EdgeFinder();
+            List<String[]> found = new ArrayList<String[]>();
+            for (String word : words)
+                for (String neighbor : finder.addWord(word))
+                    found.add(new String[] { word, neighbor });
+            return found;
+        });
+        Fixture<Graph<String>> graph = new Fixture<Graph<String>>(() -> {
+            Graph<String> built = new Graph<String>();
+            for (String word : words)
+                built.addVertex(word);
+            for (String[] edge : edges.get())
+                built.addEdge(edge[0], edge[1]);
+            return built;
+        });
+        bench("Graph.build", name, filter, () -> {
+            List<String[]> known = edges.get();
+            return () -> {
+                Graph<String> built = new Graph<String>();
+                for (String word : words)
+                    built.addVertex(word);
+                for (String[] edge : known)
+                    built.addEdge(edge[0], edge[1]);
+                return built.vertices.size();
+            };
+        });
+        bench("Graph.getNeighbors", name, filter, () -> {
+            Graph<String> built = graph.get();
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    long count = 0;
+                    for (String neighbor : built.getNeighbors(words.get(i++ % words.size())))
+                        count += neighbor.length();
+                    return count;
+                }
+            };
+        });
+        bench("Graph.isAdjacent", name, filter, () -> {
+            Graph<String> built = graph.get();
+            List<String[]> known = edges.get();
+            String[] pair = { words.get(0), words.get(words.size() - 1) };
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] edge = known.isEmpty() ? pair : known.get(i++ % known.size());
+                    return built.isAdjacent(edge[0], edge[1]) ? 1 : 0;
+                }
+            };
+        });
+
+        // GraphProcessor: reading and linking the dictionary
+        bench("GraphProcessor.populateGraph", name, filter, () -> () -> {
+            return new GraphProcessor().populateGraph(dictionary);
+        });
+
+        // long queries searched without precomputation, where A* has the most to gain from
+        // knowing where the target is: the longest of 4 * SAMPLE_SIZE random connected pairs
+        Fixture<GraphProcessor> pointToPoint = new Fixture<GraphProcessor>(() -> {
+            GraphProcessor processor = new GraphProcessor();
+            processor.usePointToPointPaths();
+            processor.populateGraph(dictionary);
+            return processor;
+        });
+        Fixture<String[][]> longQueries = new Fixture<String[][]>(() -> {
+            Random random = new Random(words.size());
+            List<String[]> candidates = new ArrayList<String[]>();
+            for (int i = 0; i < 4 * SAMPLE_SIZE; i++)
+                candidates.add(new String[] { words.get(random.nextInt(words.size())),
+                                words.get(random.nextInt(words.size())) });
+            candidates.sort(Comparator.comparing((String[] pair) -> -pointToPoint.get()
+                            .getShortestDistance(pair[0], pair[1])));
+            return candidates.subList(0, SAMPLE_SIZE).toArray(new String[0][]);
+        });
+        bench("GraphProcessor.getShortestDistance.longPointToPoint", name, filter, () -> {
+            GraphProcessor processor = pointToPoint.get();
+            String[][] queries = longQueries.get();
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] query = queries[i++ & (SAMPLE_SIZE - 1)];
+                    return processor.getShortestDistance(query[0], query[1]);
+                }
+            };
+        });
+        bench("GraphProcessor.getShortestDistance.longAStar", name, filter, () -> {
+            GraphProcessor aStar = new GraphProcessor();
+            aStar.useAStarPaths();
+            aStar.populateGraph(dictionary);
+            String[][] queries = longQueries.get();
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] query = queries[i++ & (SAMPLE_SIZE - 1)];
+                    return aStar.getShortestDistance(query[0], query[1]);
+                }
+            };
+        });
+
+        if (words.size() > MAX_PRECOMPUTED_SIZE)
+            return;
+        Fixture<GraphProcessor> precomputed = new Fixture<GraphProcessor>(() -> {
+            GraphProcessor processor = new GraphProcessor();
+            processor.populateGraph(dictionary);
+            return processor;
+        });
+        bench("GraphProcessor.shortestPathPrecomputation", name, filter, () -> {
+            GraphProcessor processor = precomputed.get();
+            return () -> {
+                processor.shortestPathPrecomputation();
+                return processor.getPathTableBytes();
+            };
+        });
+
+        // queries between random words, most of which are connected in a real dictionary
+        Fixture<String[][]> queries = new Fixture<String[][]>(() -> {
+            precomputed.get().shortestPathPrecomputation();
+            Random random = new Random(words.size());
+            String[][] pairs = new String[SAMPLE_SIZE][];
+            for (int i = 0; i < SAMPLE_SIZE; i++)
+                pairs[i] = new String[] { words.get(random.nextInt(words.size())),
+                                words.get(random.nextInt(words.size())) };
+            return pairs;
+        });
+        bench("GraphProcessor.getShortestPath", name, filter, () -> {
+            String[][] pairs = queries.get();
+            GraphProcessor processor = precomputed.get();
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] query = pairs[i++ & (SAMPLE_SIZE - 1)];
+                    List<String> path = processor.getShortestPath(query[0], query[1]);
+                    return path == null ? 0 : path.size();
+                }
+            };
+        });
+        bench("GraphProcessor.getShortestDistance", name, filter, () -> {
+            String[][] pairs = queries.get();
+            GraphProcessor processor = precomputed.get();
+            return new Operation() {
+                private int i;
+
+                @Override
+                public long run() {
+                    String[] query = pairs[i++ & (SAMPLE_SIZE - 1)];
+                    return processor.getShortestDistance(query[0], query[1]);
+                }
+            };
+        });
+    }
+
+    /**
+     * Runs the warmup and measured iterations of one benchmark and prints its results
+     *
+     * @param benchmark name of the benchmark
+     * @param dictionary name of the dictionary it runs on
+     * @param filter the benchmark is skipped unless its name contains this
+     * @param setup builds the fixture of the benchmark, only if it runs, and returns the
+     *        operation to measure
+     */
+    private static void bench(String benchmark, String dictionary, String filter,
+                    Supplier<Operation> setup) {
+        if (!benchmark.contains(filter))
+            return;
+        Operation operation = setup.get();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            iterate(operation);
+
+        long operations = 0, nanos = 0, bytes = 0;
+        long gcCount = -gcCount(), gcMillis = -gcMillis();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            long count = iterate(operation);
+            nanos += System.nanoTime() - start;
+            bytes += allocatedBytes() - allocated;
+            operations += count;
+        }
+        gcCount += gcCount();
+        gcMillis += gcMillis();
+
+        System.out.printf("%-42s %-16s %14.1f %12s %9d %9d%n", benchmark, dictionary,
+                        (double) nanos / operations,
+                        bytes < 0 ? "n/a" : String.format("%.1f", (double) bytes / operations),
+                        gcCount, gcMillis);
+    }
+
+    /**
+     * Runs the operation for at least ITERATION_MILLIS, and at least once
+     *
+     * @return long number of operations run
+     */
+    private static long iterate(Operation operation) {
+        long end = System.nanoTime() + ITERATION_MILLIS * 1_000_000;
+        long count = 0, result = 0;
+        // the batch between clock reads doubles, so fast operations are not dominated by the
+        // clock and slow ones are not run far past the end of the iteration
+        for (int batch = 1; ; batch = Math.min(2 * batch, 1024)) {
+            for (int i = 0; i < batch; i++)
+                result += operation.run();
+            count += batch;
+            if (System.nanoTime() >= end)
+                break;
+        }
+        sink += result;
+        return count;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or a negative number if the JVM
+     * cannot tell
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean)
+            return ((ThreadMXBean) ManagementFactory.getThreadMXBean())
+                            .getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    /**
+     * Returns the number of collections run so far by every collector
+     */
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, collector.getCollectionCount());
+        return count;
+    }
+
+    /**
+     * Returns the milliseconds spent so far in every collector
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, collector.getCollectionTime());
+        return millis;
+    }
+
+    /**
+     * Samples SAMPLE_SIZE pairs of words whose lengths differ by exactly lengthDiff, or any
+     * pairs if the dictionary has none
+     *
+     * @param words the distinct words of the dictionary
+     * @param random source of the sample
+     * @param lengthDiff difference between the lengths of the two words
+     * @return String[][] the pairs
+     */
+    private static String[][] samplePairs(List<String> words, Random random, int lengthDiff) {
+        String[][] pairs = new String[SAMPLE_SIZE][];
+        for (int i = 0, attempts = 0; i < SAMPLE_SIZE; attempts++) {
+            String word1 = words.get(random.nextInt(words.size()));
+            String word2 = words.get(random.nextInt(words.size()));
+            if (word1.length() + lengthDiff == word2.length() || attempts > 100 * SAMPLE_SIZE)
+                pairs[i++] = new String[] { word1, word2 };
+        }
+        return pairs;
+    }
+
+    /**
+     * Writes a dictionary of random words to a temporary file. Most words are made from an
+     * earlier word by replacing, adding or removing one letter, so like a real dictionary the
+     * words form long ladders.
+     *
+     * @param size number of distinct words
+     * @return String file path of the dictionary
+     */
+    private static String syntheticDictionary(int size) throws IOException {
+        Random random = new Random(size);
+        List<String> words = new ArrayList<String>();
+        Set<String> distinct = new LinkedHashSet<String>();
+        while (distinct.size() < size) {
+            String word;
+            if (words.isEmpty() || random.nextInt(10) < 3) {
+                char[] chars = new char[3 + random.nextInt(6)];
+                for (int i = 0; i < chars.length; i++)
+                    chars[i] = (char) ('A' + random.nextInt(26));
+                word = new String(chars);
+            } else {
+                StringBuilder builder = new StringBuilder(words.get(random.nextInt(words.size())));
+                int position = random.nextInt(builder.length());
+                char letter = (char) ('A' + random.nextInt(26));
+                int edit = random.nextInt(3);
+                if (edit == 0)
+                    builder.setCharAt(position, letter);
+                else if (edit == 1)
+                    builder.insert(position, letter);
+                else if (builder.length() > 1)
+                    builder.deleteCharAt(position);
+                word = builder.toString();
+            }
+            if (distinct.add(word))
+                words.add(word);
+        }
+        File file = File.createTempFile("synthetic-" + size + "-", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), words, StandardCharsets.UTF_8);
+        return file.getPath();
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answers each query with a breadth first search from both words at once, without any
+ * precomputation. The two searches expand one whole level at a time, always on the side with
+ * the smaller frontier, and stop at the first edge joining them. Until then every path is longer
+ * than the two radii together, so that edge closes a shortest path and the distances match a
+ * full breadth first search.
+ *
+ * Each thread keeps its own scratch arrays. A vertex counts as visited only if its stamp equals
+ * the current query's generation, so the arrays never need clearing and a query allocates
+ * nothing but its result.
+ */
+class BidirectionalSearch implements ShortestPaths {
+
+    // the graph to search
+    private IntGraph graph;
+    // scratch arrays of the calling thread
+    private ThreadLocal<Scratch> scratch;
+
+    /**
+     * Creates a search over graph
+     *
+     * @param graph the graph to search
+     */
+    BidirectionalSearch(IntGraph graph) {
+        this.graph = graph;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+    }
+
+    /**
+     * Per-thread state of one search direction: generation stamps, distances, predecessors and
+     * the frontier queue
+     */
+    private static class Side {
+        private int[] stamp;
+        private int[] distance;
+        private int[] predecessor;
+        private int[] queue;
+        private int head;
+        private int tail;
+
+        private Side(int size) {
+            this.stamp = new int[size];
+            this.distance = new int[size];
+            this.predecessor = new int[size];
+            this.queue = new int[size];
+        }
+    }
+
+    /**
+     * Scratch arrays for both directions, the generation of the current query and the edge
+     * where the directions met
+     */
+    private static class Scratch {
+        private Side forward;
+        private Side backward;
+        private int generation;
+        // meeting[0] was reached from the first word and meeting[1] from the second
+        private int[] meeting;
+
+        private Scratch(int size) {
+            this.forward = new Side(size);
+            this.backward = new Side(size);
+            this.meeting = new int[2];
+        }
+
+        /**
+         * Starts a new query, so nothing stamped by an earlier query counts as visited
+         */
+        private int nextGeneration() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(forward.stamp, 0);
+                Arrays.fill(backward.stamp, 0);
+                generation = 1;
+            }
+            return generation;
+        }
+    }
+
+    @Override
+    public int getDistance(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        // the searches could only meet within one component
+        if (source < 0 || target < 0 || !graph.connected(source, target))
+            return SearchTree.NONE;
+        Scratch s = scratch.get();
+        int[] meeting = s.meeting;
+        if (!search(s, source, target))
+            return SearchTree.NONE;
+        return s.forward.distance[meeting[0]] + 1 + s.backward.distance[meeting[1]];
+    }
+
+    @Override
+    public List<String> getPath(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        if (source < 0 || target < 0 || !graph.connected(source, target))
+            return null;
+        Scratch s = scratch.get();
+        int[] meeting = s.meeting;
+        if (!search(s, source, target))
+            return null;
+
+        // source .. meeting[0] from the forward search, then meeting[1] .. target
+        ArrayList<String> path = new ArrayList<String>();
+        for (int node = meeting[0]; node != SearchTree.NONE; node = s.forward.predecessor[node])
+            path.add(graph.word(node));
+        Collections.reverse(path);
+        for (int node = meeting[1]; node != SearchTree.NONE; node = s.backward.predecessor[node])
+            path.add(graph.word(node));
+        return path;
+    }
+
+    /**
+     * Runs one breadth first search from the source for all the targets, rather than a
+     * bidirectional search per target, and none if no target is in the source's component
+     */
+    @Override
+    public void getDistances(String source, String[] targets, int[] results) {
+        int id = graph.id(source);
+        boolean search = id >= 0 && SearchTree.reachesAny(graph, id, targets);
+        SearchTree.distances(graph, search ? SearchTree.search(graph, id).distance : null,
+                        targets, results);
+    }
+
+    /**
+     * Runs one breadth first search from the source for all the targets, rather than a
+     * bidirectional search per target, and none if no target is in the source's component
+     */
+    @Override
+    public List<List<String>> getPaths(String source, String[] targets) {
+        int id = graph.id(source);
+        if (id < 0 || !SearchTree.reachesAny(graph, id, targets))
+            return SearchTree.paths(graph, null, null, targets);
+        SearchTree tree = SearchTree.search(graph, id);
+        return SearchTree.paths(graph, tree.distance, tree.predecessor, targets);
+    }
+
+    /**
+     * Nothing is stored between queries, only per-thread scratch space
+     */
+    @Override
+    public long getFootprint() {
+        return 0;
+    }
+
+    /**
+     * Searches from source and target until the frontiers meet. On success the scratch's
+     * meeting holds an edge of a shortest path.
+     *
+     * @param s scratch of the calling thread
+     * @param source id of the first word
+     * @param target id of the second word, different from source
+     * @return true if target is reachable from source
+     */
+    private boolean search(Scratch s, int source, int target) {
+        int generation = s.nextGeneration();
+        start(s.forward, source, generation);
+        start(s.backward, target, generation);
+
+        while (s.forward.head < s.forward.tail && s.backward.head < s.backward.tail) {
+            boolean met;
+            if (s.forward.tail - s.forward.head <= s.backward.tail - s.backward.head)
+                met = expandLevel(s.forward, s.backward, generation, s.meeting, false);
+            else
+                met = expandLevel(s.backward, s.forward, generation, s.meeting, true);
+            if (met)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Puts the first vertex of a direction in its queue
+     */
+    private static void start(Side side, int vertex, int generation) {
+        side.head = 0;
+        side.tail = 0;
+        side.stamp[vertex] = generation;
+        side.distance[vertex] = 0;
+        side.predecessor[vertex] = SearchTree.NONE;
+        side.queue[side.tail++] = vertex;
+    }
+
+    /**
+     * Visits every vertex of the current level of one direction. Any edge reaching a vertex the
+     * other direction visited closes a path, and the first level that closes one only closes
+     * shortest ones, so the first such edge is kept.
+     *
+     * @param side the direction being expanded
+     * @param other the opposite direction
+     * @param generation the current query's generation
+     * @param meeting receives the meeting edge, forward end first
+     * @param backward true if side is the search from the target
+     * @return true if the directions met
+     */
+    private boolean expandLevel(Side side, Side other, int generation, int[] meeting,
+                    boolean backward) {
+        int levelEnd = side.tail;
+        while (side.head < levelEnd) {
+            int node = side.queue[side.head++];
+            for (int successor : graph.neighbors(node)) {
+                if (other.stamp[successor] == generation) {
+                    meeting[backward ? 1 : 0] = node;
+                    meeting[backward ? 0 : 1] = successor;
+                    return true;
+                }
+                if (side.stamp[successor] != generation) {
+                    side.stamp[successor] = generation;
+                    side.distance[successor] = side.distance[node] + 1;
+                    side.predecessor[successor] = node;
+                    side.queue[side.tail++] = successor;
+                }
+            }
+        }
+        return false;
+    }
+}
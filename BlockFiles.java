@@ -0,0 +1,118 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Block-at-a-time reads and writes through a FileChannel, shared by the binary files of
+ * {@link GraphSnapshot} and {@link MappedPathTable}.
+ */
+class BlockFiles {
+
+    /**
+     * Number of bytes moved per channel write
+     */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Writes the contents of a file through a buffer, see
+     * {@link BlockFiles#writeAtomically(Path, Writer)}
+     */
+    interface Writer {
+
+        /**
+         * Writes the contents of the file
+         *
+         * @param channel the file being written
+         * @param buffer an empty buffer of BLOCK_SIZE bytes, written out to channel when full
+         *        and once more after this returns
+         * @throws IOException exception resulting from writing the file
+         */
+        void write(FileChannel channel, ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Writes a file, replacing it if it exists. The file is written under a temporary name in
+     * the same directory, forced to disk and then renamed over the old one, so a crash never
+     * leaves half a file and processes that mapped the old file keep reading it.
+     *
+     * @param path the file to write
+     * @param writer writes the contents of the file
+     * @throws IOException exception resulting from writing the file
+     */
+    static void writeAtomically(Path path, Writer writer) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                            StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+                writer.write(channel, buffer);
+                drain(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Makes room for count bytes in the buffer, writing it out first if needed
+     *
+     * @return ByteBuffer the buffer
+     */
+    static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int count)
+                    throws IOException {
+        if (buffer.remaining() < count)
+            drain(channel, buffer);
+        return buffer;
+    }
+
+    /**
+     * Appends an int to the buffer, writing the buffer out first if it is full
+     */
+    static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        ensure(channel, buffer, 4).putInt(value);
+    }
+
+    /**
+     * Appends bytes to the buffer, writing the buffer out whenever it fills
+     */
+    static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        for (int i = 0; i < bytes.length; ) {
+            int count = Math.min(ensure(channel, buffer, 1).remaining(), bytes.length - i);
+            buffer.put(bytes, i, count);
+            i += count;
+        }
+    }
+
+    /**
+     * Writes out everything in the buffer and empties it
+     */
+    static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Fills the buffer from the channel's current position and flips it for reading
+     *
+     * @return ByteBuffer the buffer
+     * @throws EOFException if the file ends first
+     */
+    static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new EOFException("file ended early");
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.Arrays;
+
+/**
+ * Tracks the connected components of a word graph as its edges are added, as a union-find over
+ * the ids of a {@link WordDictionary}. Edges are never removed from the graph, so joining two
+ * components is the only change it ever needs. Union by size and path halving keep every
+ * operation close to constant time.
+ *
+ * It is not thread safe: it is changed and read by one thread at a time, and searches read the
+ * labels copied by {@link #labels(int)} instead.
+ */
+class ComponentIndex {
+
+    // parent[id] is the next id towards the root of id's component, a root is its own parent
+    private int[] parent;
+    // sizes[root] is the number of words in the component of root
+    private int[] sizes;
+    // number of ids added, every id below it is in the index
+    private int size;
+    // number of components
+    private int count;
+
+    /**
+     * Creates an empty index
+     */
+    ComponentIndex() {
+        this.parent = new int[16];
+        this.sizes = new int[16];
+    }
+
+    /**
+     * Adds id, and every smaller id not added yet, each as a component of its own
+     *
+     * @param id the id given to a new word
+     */
+    void add(int id) {
+        if (id < size)
+            return;
+        if (id >= parent.length) {
+            int length = Math.max(2 * parent.length, id + 1);
+            parent = Arrays.copyOf(parent, length);
+            sizes = Arrays.copyOf(sizes, length);
+        }
+        for (int next = size; next <= id; next++) {
+            parent[next] = next;
+            sizes[next] = 1;
+        }
+        count += id + 1 - size;
+        size = id + 1;
+    }
+
+    /**
+     * Joins the components of two ids, as an edge between them was added
+     *
+     * @param id1 first id, already added
+     * @param id2 second id, already added
+     * @return boolean true if they were in different components
+     */
+    boolean union(int id1, int id2) {
+        int root1 = find(id1);
+        int root2 = find(id2);
+        if (root1 == root2)
+            return false;
+        // the smaller component goes below the larger, so no path grows longer than log2(size)
+        if (sizes[root1] < sizes[root2]) {
+            int swap = root1;
+            root1 = root2;
+            root2 = swap;
+        }
+        parent[root2] = root1;
+        sizes[root1] += sizes[root2];
+        count--;
+        return true;
+    }
+
+    /**
+     * Gets the root of the component of an id, which is the same for two ids exactly when they
+     * are connected. The root may change when components are joined.
+     *
+     * @param id an added id
+     * @return int the id of the root of its component
+     */
+    int find(int id) {
+        while (parent[id] != id) {
+            // path halving: point every other id on the way at its grandparent
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of words in the component of an id
+     *
+     * @param id an added id
+     * @return int number of words
+     */
+    int componentSize(int id) {
+        return sizes[find(id)];
+    }
+
+    /**
+     * Returns the number of ids added
+     *
+     * @return int number of ids
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of components
+     *
+     * @return int number of components
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Copies the root of every id below n, so two ids are connected exactly when their labels
+     * are equal. The copy does not change as the index does.
+     *
+     * @param n number of ids to label, at most size()
+     * @return int[] the label of every id
+     */
+    int[] labels(int n) {
+        int[] labels = new int[n];
+        for (int id = 0; id < n; id++)
+            labels[id] = find(id);
+        return labels;
+    }
+}
@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Undirected and unweighted graph that can be read and written from several threads at once.
+ *
+ * Reads take no locks: the vertices and every vertex's neighbors are concurrent sets, so
+ * {@link #isAdjacent(Object, Object)}, {@link #getNeighbors(Object)} and
+ * {@link #getAllVertices()} never wait for a writer, and see each edge either before or after
+ * it is added. Writes to an edge lock the stripes of both of its vertices, always the lower
+ * stripe first, so both directions of the edge change together and writers to unrelated
+ * vertices rarely wait for each other.
+ *
+ * A vertex being removed is marked under its stripe before its edges are dropped, so no new
+ * edge can reach it; until all of them are dropped its neighbors may still list it.
+ *
+ * @param <E> type of a vertex
+ */
+public class ConcurrentGraph<E> implements GraphADT<E>, NeighborAccess<E> {
+
+    /**
+     * Number of lock stripes, a power of 2
+     */
+    private static final int STRIPES = 64;
+
+    // lookup from vertex value to its node
+    private ConcurrentHashMap<E, Node<E>> index;
+    // locks guarding the edges of the vertices hashing to each stripe
+    private Object[] locks;
+
+    /**
+     * A vertex and the nodes it has edges to
+     */
+    private static class Node<E> {
+        private E value;
+        private Set<Node<E>> edges;
+        // set under the vertex's stripe once the vertex is removed
+        private volatile boolean removed;
+
+        private Node(E value) {
+            this.value = value;
+            this.edges = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Creates an empty graph
+     */
+    public ConcurrentGraph() {
+        this.index = new ConcurrentHashMap<E, Node<E>>();
+        this.locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new Object();
+    }
+
+    /**
+     * Adds vertex to the graph, unless it is null or already a vertex
+     */
+    @Override
+    public E addVertex(E vertex) {
+        if (vertex == null)
+            return null;
+        return index.putIfAbsent(vertex, new Node<E>(vertex)) == null ? vertex : null;
+    }
+
+    /**
+     * Removes vertex and all of its edges
+     */
+    @Override
+    public E removeVertex(E vertex) {
+        if (vertex == null)
+            return null;
+        Node<E> node;
+        synchronized (locks[stripe(vertex)]) {
+            node = index.remove(vertex);
+            if (node == null)
+                return null;
+            node.removed = true;
+        }
+        for (Node<E> neighbor : node.edges) {
+            Object first = locks[Math.min(stripe(vertex), stripe(neighbor.value))];
+            Object second = locks[Math.max(stripe(vertex), stripe(neighbor.value))];
+            synchronized (first) {
+                synchronized (second) {
+                    neighbor.edges.remove(node);
+                    node.edges.remove(neighbor);
+                }
+            }
+        }
+        return vertex;
+    }
+
+    @Override
+    public boolean addEdge(E vertex1, E vertex2) {
+        return changeEdge(vertex1, vertex2, true);
+    }
+
+    @Override
+    public boolean removeEdge(E vertex1, E vertex2) {
+        return changeEdge(vertex1, vertex2, false);
+    }
+
+    /**
+     * Adds or removes the edge between two vertices, holding the stripes of both
+     *
+     * @param vertex1 first vertex
+     * @param vertex2 second vertex
+     * @param add true to add the edge, false to remove it
+     * @return true if both vertices exist and are different
+     */
+    private boolean changeEdge(E vertex1, E vertex2, boolean add) {
+        if (vertex1 == null || vertex2 == null || vertex1.equals(vertex2))
+            return false;
+        Node<E> node1 = index.get(vertex1);
+        Node<E> node2 = index.get(vertex2);
+        if (node1 == null || node2 == null)
+            return false;
+        int stripe1 = stripe(vertex1);
+        int stripe2 = stripe(vertex2);
+        synchronized (locks[Math.min(stripe1, stripe2)]) {
+            synchronized (locks[Math.max(stripe1, stripe2)]) {
+                // either vertex may have been removed since it was looked up
+                if (node1.removed || node2.removed)
+                    return false;
+                if (add) {
+                    node1.edges.add(node2);
+                    node2.edges.add(node1);
+                } else {
+                    node1.edges.remove(node2);
+                    node2.edges.remove(node1);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns if vertex1 is adjacent to vertex2
+     */
+    @Override
+    public boolean isAdjacent(E vertex1, E vertex2) {
+        if (vertex1 == null || vertex2 == null || vertex1.equals(vertex2))
+            return false;
+        Node<E> node1 = index.get(vertex1);
+        Node<E> node2 = index.get(vertex2);
+        return node1 != null && node2 != null && node1.edges.contains(node2);
+    }
+
+    /**
+     * Returns a read-only copy of the neighbors of vertex, or null if it is not a vertex
+     */
+    @Override
+    public Iterable<E> getNeighbors(E vertex) {
+        if (vertex == null)
+            return null;
+        Node<E> node = index.get(vertex);
+        if (node == null)
+            return null;
+        List<E> list = new ArrayList<E>();
+        for (Node<E> neighbor : node.edges)
+            list.add(neighbor.value);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Calls action with each neighbor of a vertex, without copying them
+     *
+     * @param vertex the vertex
+     * @param action called once per neighbor
+     * @return true if vertex exists, false if it is null or not in the graph
+     */
+    @Override
+    public boolean forEachNeighbor(E vertex, Consumer<? super E> action) {
+        if (vertex == null)
+            return false;
+        Node<E> node = index.get(vertex);
+        if (node == null)
+            return false;
+        for (Node<E> neighbor : node.edges)
+            action.accept(neighbor.value);
+        return true;
+    }
+
+    /**
+     * Returns the number of neighbors of a vertex
+     *
+     * @param vertex the vertex
+     * @return int the number of neighbors, or -1 if vertex is null or not in the graph
+     */
+    @Override
+    public int degree(E vertex) {
+        if (vertex == null)
+            return -1;
+        Node<E> node = index.get(vertex);
+        return node == null ? -1 : node.edges.size();
+    }
+
+    /**
+     * Returns a copy of all vertices
+     */
+    @Override
+    public Iterable<E> getAllVertices() {
+        return new ArrayList<E>(index.keySet());
+    }
+
+    /**
+     * Gets the lock stripe of a vertex
+     */
+    private static int stripe(Object vertex) {
+        int h = vertex.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
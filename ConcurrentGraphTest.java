@@ -0,0 +1,234 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Junit test class to test class @see ConcurrentGraph. Runs every test of @see GraphTest on a
+ * ConcurrentGraph, plus stress tests with several threads reading and writing at once.
+ */
+public class ConcurrentGraphTest extends GraphTest {
+
+	private static final int THREADS = 8;
+
+	@Override
+	protected GraphADT<String> createGraph() {
+		return new ConcurrentGraph<>();
+	}
+
+	@Test
+	public final void concurrentEdgeInsertsOnSharedVerticesStaySymmetric() throws Exception {
+		ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+		int size = 200;
+		// every thread adds the same vertices and random edges among them, so writers collide
+		List<Callable<Set<String>>> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int seed = t;
+			tasks.add(() -> {
+				Random random = new Random(seed);
+				Set<String> added = new HashSet<>();
+				for (int i = 0; i < size; i++)
+					graph.addVertex("v" + i);
+				for (int i = 0; i < 20000; i++) {
+					int a = random.nextInt(size), b = random.nextInt(size);
+					if (graph.addEdge("v" + a, "v" + b))
+						added.add(edge("v" + a, "v" + b));
+				}
+				return added;
+			});
+		}
+		Set<String> expected = new HashSet<>();
+		for (Set<String> added : runAll(tasks))
+			expected.addAll(added);
+
+		assertEquals("number of vertices in the graph", size, count(graph.getAllVertices()));
+		assertEquals("edges in the graph", expected, edges(graph));
+	}
+
+	@Test
+	public final void concurrentShardLoadsMatchSequentialLoad() throws Exception {
+		// chains of words, loaded as one shard per thread with edges between the shards too
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 4000; i++)
+			words.add("w" + i);
+		Graph<String> sequential = new Graph<>();
+		for (String word : words)
+			sequential.addVertex(word);
+		for (int i = 1; i < words.size(); i++) {
+			sequential.addEdge(words.get(i - 1), words.get(i));
+			sequential.addEdge(words.get(i), words.get(i / 2));
+		}
+
+		ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+		List<Callable<Set<String>>> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int shard = t;
+			tasks.add(() -> {
+				for (int i = shard; i < words.size(); i += THREADS) {
+					graph.addVertex(words.get(i));
+					// an edge to a word of another shard fails until that word is added
+					for (int j : new int[] { i - 1, i + 1, i / 2, 2 * i, 2 * i + 1 })
+						if (j >= 0 && j < words.size() && j != i && isEdge(i, j))
+							graph.addEdge(words.get(i), words.get(j));
+				}
+				return null;
+			});
+		}
+		runAll(tasks);
+
+		assertEquals("number of vertices in the graph", words.size(), count(graph.getAllVertices()));
+		assertEquals("edges in the graph", edges(sequential), edges(graph));
+	}
+
+	@Test
+	public final void readsDuringWritesNeverFail() throws Exception {
+		ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+		AtomicBoolean done = new AtomicBoolean();
+		List<Callable<Set<String>>> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS / 2; t++) {
+			int seed = t;
+			tasks.add(() -> {
+				Random random = new Random(seed);
+				for (int i = 0; i < 20000; i++) {
+					String a = "v" + random.nextInt(500), b = "v" + random.nextInt(500);
+					graph.addVertex(a);
+					graph.addVertex(b);
+					graph.addEdge(a, b);
+					if (i % 7 == 0)
+						graph.removeEdge(a, b);
+				}
+				return null;
+			});
+		}
+		for (int t = 0; t < THREADS / 2; t++) {
+			tasks.add(() -> {
+				while (!done.get()) {
+					for (String vertex : graph.getAllVertices()) {
+						Iterable<String> neighbors = graph.getNeighbors(vertex);
+						if (neighbors != null)
+							for (String neighbor : neighbors)
+								graph.isAdjacent(vertex, neighbor);
+					}
+				}
+				return null;
+			});
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+		try {
+			List<Future<Set<String>>> futures = new ArrayList<>();
+			for (Callable<Set<String>> task : tasks)
+				futures.add(pool.submit(task));
+			for (int t = 0; t < THREADS / 2; t++)
+				futures.get(t).get();
+			done.set(true);
+			for (Future<Set<String>> future : futures)
+				future.get();
+		} finally {
+			pool.shutdownNow();
+		}
+		assertSymmetric(graph);
+	}
+
+	@Test
+	public final void concurrentRemovalsLeaveNoDanglingEdges() throws Exception {
+		ConcurrentGraph<String> graph = new ConcurrentGraph<>();
+		int size = 300;
+		for (int i = 0; i < size; i++)
+			graph.addVertex("v" + i);
+		List<Callable<Set<String>>> tasks = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int seed = t;
+			boolean remover = t % 2 == 0;
+			tasks.add(() -> {
+				Random random = new Random(seed);
+				for (int i = 0; i < 20000; i++) {
+					String a = "v" + random.nextInt(size), b = "v" + random.nextInt(size);
+					if (remover && i % 10 == 0) {
+						graph.removeVertex(a);
+						graph.addVertex(a);
+					} else {
+						graph.addEdge(a, b);
+					}
+				}
+				return null;
+			});
+		}
+		runAll(tasks);
+
+		assertEquals("number of vertices in the graph", size, count(graph.getAllVertices()));
+		assertSymmetric(graph);
+	}
+
+	/**
+	 * Runs the tasks on their own threads, all starting at once, and returns their results
+	 */
+	private static <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<T>> futures = new ArrayList<>();
+			for (Callable<T> task : tasks)
+				futures.add(pool.submit(() -> {
+					start.await();
+					return task.call();
+				}));
+			start.countDown();
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures)
+				results.add(future.get());
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Checks that every neighbor is a vertex that lists the vertex back
+	 */
+	private static void assertSymmetric(GraphADT<String> graph) {
+		Set<String> vertices = new HashSet<>();
+		for (String vertex : graph.getAllVertices())
+			vertices.add(vertex);
+		for (String vertex : vertices) {
+			for (String neighbor : graph.getNeighbors(vertex)) {
+				assertTrue("neighbor " + neighbor + " of " + vertex + " is a vertex", vertices.contains(neighbor));
+				assertTrue("edge " + vertex + " " + neighbor + " is symmetric", graph.isAdjacent(neighbor, vertex));
+			}
+		}
+	}
+
+	/**
+	 * Whether the chains of concurrentShardLoadsMatchSequentialLoad join words i and j
+	 */
+	private static boolean isEdge(int i, int j) {
+		return Math.abs(i - j) == 1 || j == i / 2 || i == j / 2;
+	}
+
+	/**
+	 * Names every edge of the graph, checking they are symmetric
+	 */
+	private static Set<String> edges(GraphADT<String> graph) {
+		assertSymmetric(graph);
+		Set<String> edges = new HashSet<>();
+		for (String vertex : graph.getAllVertices())
+			for (String neighbor : graph.getNeighbors(vertex))
+				edges.add(edge(vertex, neighbor));
+		return edges;
+	}
+
+	private static String edge(String vertex1, String vertex2) {
+		return vertex1.compareTo(vertex2) < 0 ? vertex1 + " " + vertex2 : vertex2 + " " + vertex1;
+	}
+}
@@ -0,0 +1,266 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the adjacent pairs among a set of words without comparing every pair.
+ *
+ * Each word is indexed under two kinds of buckets:
+ * 	1. substitution patterns, the word with one position replaced by a wildcard
+ * 	   (CAT is indexed under _AT, C_T and CA_)
+ * 	2. deletion keys, the word with one char removed
+ * 	   (CAT is indexed under AT, CT and CA)
+ *
+ * Two words that differ by 1 char replacement share a substitution pattern, and a word
+ * that is 1 char addition away from a shorter word has that shorter word as one of its
+ * deletion keys. Only words that share a bucket are checked with
+ * {@link WordProcessor#isAdjacent(String, String)}, so the edges found are exactly the
+ * ones the pairwise check would find.
+ *
+ * Words can be added one at a time with {@link #addWord(String)}, where each call returns
+ * the neighbors among the words indexed so far, or a whole list can be linked on a
+ * ForkJoinPool with {@link #findEdges(List, ForkJoinPool)}.
+ */
+public class EdgeFinder {
+
+	/**
+	 * Char used in place of the replaced position of a substitution pattern
+	 */
+	private static final char WILDCARD = '_';
+
+	/**
+	 * Number of words a fork-join task handles without splitting further
+	 */
+	private static final int CHUNK_SIZE = 1024;
+
+	// words sharing a substitution pattern
+	private Map<String, Collection<String>> substitutions;
+	// longer words reducing to a deletion key
+	private Map<String, Collection<String>> deletions;
+	// all distinct words indexed so far
+	private Set<String> words;
+	// whether the buckets can be filled from several threads
+	private boolean concurrent;
+
+	/**
+	 * Creates an empty EdgeFinder
+	 */
+	public EdgeFinder() {
+		this(false);
+	}
+
+	/**
+	 * Creates an empty EdgeFinder, backed by concurrent maps if words are indexed from
+	 * several threads
+	 *
+	 * @param concurrent true if index() may be called concurrently
+	 */
+	private EdgeFinder(boolean concurrent) {
+		this.concurrent = concurrent;
+		if (concurrent) {
+			this.substitutions = new ConcurrentHashMap<String, Collection<String>>();
+			this.deletions = new ConcurrentHashMap<String, Collection<String>>();
+			this.words = ConcurrentHashMap.newKeySet();
+		} else {
+			this.substitutions = new HashMap<String, Collection<String>>();
+			this.deletions = new HashMap<String, Collection<String>>();
+			this.words = new HashSet<String>();
+		}
+	}
+
+	/**
+	 * Indexes word and returns the words indexed before it that are adjacent to it.
+	 *
+	 * A word that was already indexed (or null) has no new neighbors.
+	 *
+	 * @param word the word to add
+	 * @return List<String> the previously indexed words adjacent to word
+	 */
+	public List<String> addWord(String word) {
+		if (word == null || words.contains(word))
+			return new ArrayList<String>();
+		List<String> neighbors = neighbors(word);
+		index(word);
+		return neighbors;
+	}
+
+	/**
+	 * Finds every adjacent pair of words in the list. The words are indexed and then linked
+	 * in chunks on the given pool; each edge is returned once, as a pair of words.
+	 *
+	 * @param list the words to link, may contain duplicates
+	 * @param pool the pool that runs the chunks
+	 * @return List<String[]> the edges found
+	 */
+	public static List<String[]> findEdges(List<String> list, ForkJoinPool pool) {
+		EdgeFinder finder = new EdgeFinder(true);
+		pool.invoke(finder.new IndexTask(list, 0, list.size()));
+		// link the distinct words only, so a repeated word cannot report its edges twice
+		List<String> distinct = new ArrayList<String>(finder.words);
+		return pool.invoke(finder.new LinkTask(distinct, 0, distinct.size()));
+	}
+
+	/**
+	 * Adds word to its substitution and deletion buckets
+	 *
+	 * @param word the word to index
+	 * @return true if word was not indexed before
+	 */
+	private boolean index(String word) {
+		if (word == null || !words.add(word))
+			return false;
+		char[] chars = word.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			char c = chars[i];
+			chars[i] = WILDCARD;
+			bucket(substitutions, new String(chars)).add(word);
+			chars[i] = c;
+		}
+		for (String key : deletionKeys(word))
+			bucket(deletions, key).add(word);
+		return true;
+	}
+
+	/**
+	 * Returns the indexed words adjacent to word, without changing the index
+	 *
+	 * @param word the word to look up
+	 * @return List<String> the indexed words adjacent to word
+	 */
+	private List<String> neighbors(String word) {
+		// a pair can share more than one bucket, so collect each neighbor once
+		Set<String> candidates = new LinkedHashSet<String>();
+		char[] chars = word.toCharArray();
+
+		// 1 char replacement
+		for (int i = 0; i < chars.length; i++) {
+			char c = chars[i];
+			chars[i] = WILDCARD;
+			Collection<String> pattern = substitutions.get(new String(chars));
+			if (pattern != null)
+				candidates.addAll(pattern);
+			chars[i] = c;
+		}
+
+		// 1 char addition, word is the shorter one
+		Collection<String> longer = deletions.get(word);
+		if (longer != null)
+			candidates.addAll(longer);
+
+		// 1 char deletion, word is the longer one
+		for (String key : deletionKeys(word))
+			if (words.contains(key))
+				candidates.add(key);
+
+		List<String> neighbors = new ArrayList<String>();
+		for (String candidate : candidates)
+			if (WordProcessor.isAdjacent(word, candidate))
+				neighbors.add(candidate);
+		return neighbors;
+	}
+
+	/**
+	 * Returns the distinct words obtained by deleting a single char from word
+	 *
+	 * @param word the word
+	 * @return Set<String> the deletion keys of word
+	 */
+	private static Set<String> deletionKeys(String word) {
+		Set<String> keys = new LinkedHashSet<String>();
+		for (int i = 0; i < word.length(); i++)
+			keys.add(word.substring(0, i) + word.substring(i + 1));
+		return keys;
+	}
+
+	/**
+	 * Gets the bucket for key, creating an empty one if needed
+	 *
+	 * @param buckets the substitution or deletion buckets
+	 * @param key the pattern or deletion key
+	 * @return Collection<String> the words in the bucket
+	 */
+	private Collection<String> bucket(Map<String, Collection<String>> buckets, String key) {
+		if (concurrent)
+			return buckets.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<String>());
+		Collection<String> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayList<String>();
+			buckets.put(key, bucket);
+		}
+		return bucket;
+	}
+
+	/**
+	 * Indexes list[from, to), splitting into halves until a chunk is small enough
+	 */
+	private class IndexTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private List<String> list;
+		private int from;
+		private int to;
+
+		private IndexTask(List<String> list, int from, int to) {
+			this.list = list;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= CHUNK_SIZE) {
+				for (int i = from; i < to; i++)
+					index(list.get(i));
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new IndexTask(list, from, mid), new IndexTask(list, mid, to));
+		}
+	}
+
+	/**
+	 * Finds the edges of the words in list[from, to) against the full index. An edge is
+	 * kept only by its smaller word, so every edge comes out of exactly one chunk.
+	 */
+	private class LinkTask extends RecursiveTask<List<String[]>> {
+		private static final long serialVersionUID = 1L;
+		private List<String> list;
+		private int from;
+		private int to;
+
+		private LinkTask(List<String> list, int from, int to) {
+			this.list = list;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<String[]> compute() {
+			if (to - from <= CHUNK_SIZE) {
+				List<String[]> edges = new ArrayList<String[]>();
+				for (int i = from; i < to; i++) {
+					String word = list.get(i);
+					for (String neighbor : neighbors(word))
+						if (word.compareTo(neighbor) < 0)
+							edges.add(new String[] { word, neighbor });
+				}
+				return edges;
+			}
+			int mid = (from + to) >>> 1;
+			LinkTask right = new LinkTask(list, mid, to);
+			right.fork();
+			List<String[]> edges = new LinkTask(list, from, mid).compute();
+			edges.addAll(right.join());
+			return edges;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Edit distances from many words to one target word, as given by
+ * {@link WordProcessor#editDistance(String, String, int)}, for when the target stays the same
+ * across many comparisons.
+ *
+ * The target's chars are turned into bit masks once, and each distance is then computed with
+ * the bit-vector algorithm of Myers as given by Hyyro: bit j of a column of the edit distance
+ * table holds the difference between rows j and j + 1, and a handful of bitwise operations turn
+ * one column into the next, so a comparison takes a few operations per char of the other word
+ * and allocates nothing. Targets longer than 64 chars, or with chars above 0xFF, are compared
+ * with {@link WordProcessor#editDistance(String, String, int)} instead.
+ *
+ * Not thread safe; each thread keeps its own.
+ */
+class EditDistance {
+
+    // masks[c] has bit j set where char j of the target is c
+    private long[] masks;
+    private String target;
+    // whether the target fits the masks
+    private boolean packed;
+
+    /**
+     * Creates a comparison with the empty word as its target
+     */
+    EditDistance() {
+        this.masks = new long[256];
+        this.target = "";
+        this.packed = true;
+    }
+
+    /**
+     * Sets the word the distances are computed to
+     *
+     * @param target the target word, not null
+     */
+    void setTarget(String target) {
+        if (packed)
+            for (int j = 0; j < this.target.length(); j++)
+                masks[this.target.charAt(j)] = 0;
+        this.target = target;
+        this.packed = target.length() <= Long.SIZE;
+        for (int j = 0; j < target.length() && packed; j++)
+            packed = target.charAt(j) <= 0xFF;
+        if (packed)
+            for (int j = 0; j < target.length(); j++)
+                masks[target.charAt(j)] |= 1L << j;
+    }
+
+    /**
+     * Gets the edit distance between a word and the target, computing it exactly only up to
+     * limit. The computation stops as soon as the distance can no longer come back within limit.
+     *
+     * @param word the word, not null
+     * @param limit largest distance to compute exactly, at least 0
+     * @return int the edit distance, or limit + 1 if it is more than limit
+     */
+    int distance(String word, int limit) {
+        int length = target.length();
+        if (!packed)
+            return WordProcessor.editDistance(word, target, limit);
+        if (Math.abs(word.length() - length) > limit)
+            return limit + 1;
+        if (length == 0)
+            return word.length();
+
+        // one column per char of word, one row per char of the target
+        long last = 1L << (length - 1);
+        long positive = -1L, negative = 0;
+        int score = length;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            long equal = c <= 0xFF ? masks[c] : 0;
+            long vertical = equal | negative;
+            long horizontal = (((equal & positive) + positive) ^ positive) | equal;
+            long horizontalPositive = negative | ~(horizontal | positive);
+            long horizontalNegative = positive & horizontal;
+            if ((horizontalPositive & last) != 0)
+                score++;
+            else if ((horizontalNegative & last) != 0)
+                score--;
+            // the top row is the column number, so its difference is always +1
+            horizontalPositive = (horizontalPositive << 1) | 1;
+            horizontalNegative <<= 1;
+            positive = horizontalNegative | ~(vertical | horizontalPositive);
+            negative = horizontalPositive & vertical;
+            // the score falls by at most 1 per column left
+            if (score - (word.length() - i - 1) > limit)
+                return limit + 1;
+        }
+        return Math.min(score, limit + 1);
+    }
+}
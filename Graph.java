@@ -14,10 +14,15 @@
 
 
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Undirected and unweighted graph implementation
@@ -27,12 +32,15 @@ import java.util.Set;
  * @author sapan (sapan@cs.wisc.edu)
  * 
  */
-public class Graph<E> implements GraphADT<E> {
+public class Graph<E> implements GraphADT<E>, NeighborAccess<E> {
     
   
     // list of graph node verticies 
     public Set<GraphNode> vertices;
 
+    // lookup from vertex value to its GraphNode, kept in sync with vertices
+    private Map<E, GraphNode> index;
+
     
     /**
      * Create new GraphNode
@@ -61,6 +69,7 @@ public class Graph<E> implements GraphADT<E> {
      */
     public Graph(){
         vertices = new HashSet<>();                       
+        index = new HashMap<>();
     }
     
     
@@ -75,15 +84,14 @@ public class Graph<E> implements GraphADT<E> {
         if(vertex == null) return null;
         
         // vertex cannot be a duplicate
-        for(GraphNode n : vertices) {
-            if(n.value.equals(vertex)) return null;
-        }
+        if(index.containsKey(vertex)) return null;
         
         // vertex must be a GraphNode 
         GraphNode node = new GraphNode(vertex);
       
         // GraphNode must be added to Graph
         vertices.add(node);
+        index.put(vertex, node);
         
         return vertex;
     }
@@ -97,19 +105,18 @@ public class Graph<E> implements GraphADT<E> {
         // vertex cannot be null
         if(vertex == null) return null;      
         
-        // must remove GraphNode from Graph 
-        for(GraphNode n : vertices) {
-            if(n.value.equals(vertex)) {              
-                // Get list of Edges and remove refrences
-                for(GraphNode e : n.edges) {
-                    e.edges.remove(n);
-                }
-                vertices.remove(n);
-                return vertex;
-            }
-        }      
         // vertex must be in Graph
-        return null;
+        GraphNode n = index.remove(vertex);
+        if(n == null) return null;
+        
+        // Get list of Edges and remove refrences
+        for(GraphNode e : n.edges) {
+            e.edges.remove(n);
+        }
+        // views of the removed vertex's neighbors must not keep listing them
+        n.edges.clear();
+        vertices.remove(n);
+        return vertex;
     }
 
     @Override
@@ -117,30 +124,13 @@ public class Graph<E> implements GraphADT<E> {
         // graph does not allow equal vertex1 and vertex2 or null refrerences
         if(vertex1 == null || vertex2 == null || vertex1.equals(vertex2)) return false;
         
-        // does Graph contain vertex1?
-        boolean v1 = false;      
-        // does Graph contain vertex2?
-        boolean v2 = false;
-        
-        // temp for vertex1 and vertex2
-        GraphNode temp1 = null;
-        GraphNode temp2 = null;
-        
-        // Graph must contain vertex1
-        for(GraphNode n : vertices) {
-            if(n.value.equals(vertex1)) {
-                v1 = true;
-                temp1 = n;
-            }
-            if(n.value.equals(vertex2)) {
-                v2 = true;
-                temp2 = n;
-            }
-        }
+        // Graph must contain vertex1 and vertex2
+        GraphNode temp1 = index.get(vertex1);
+        GraphNode temp2 = index.get(vertex2);
         
         // edge must be added between vertices
         // .add() does not allow duplicates to be added
-        if(v1 && v2) {
+        if(temp1 != null && temp2 != null) {
             temp1.edges.add(temp2);
             temp2.edges.add(temp1);
             return true;
@@ -159,25 +149,11 @@ public class Graph<E> implements GraphADT<E> {
         if(vertex1 == null || vertex2 == null || vertex1.equals(vertex2)) return false;
         
         // vertex1 and vertex2 must exist
-        boolean v1 = false;      
-        boolean v2 = false;
-        GraphNode temp1 = null;
-        GraphNode temp2 = null;
-        
-        for(GraphNode n : vertices) {
-            if(n.value.equals(vertex1)) {
-                v1 = true;
-                temp1 = n;
-            }
-            if(n.value.equals(vertex2)) {
-                v2 = true;
-                temp2 = n;
-            }
-        }
-
+        GraphNode temp1 = index.get(vertex1);
+        GraphNode temp2 = index.get(vertex2);
         
         // must remove edge if vertices exist
-        if(v1 && v2) {
+        if(temp1 != null && temp2 != null) {
             temp1.edges.remove(temp2);
             temp2.edges.remove(temp1);  
             return true;
@@ -195,23 +171,10 @@ public class Graph<E> implements GraphADT<E> {
         if(vertex1 == null || vertex2 == null || vertex1.equals(vertex2)) return false;
         
         // vertex1 and vertex2 must exist
-        boolean v1 = false;      
-        boolean v2 = false;
-        GraphNode temp1 = null;
-        GraphNode temp2 = null;
-        
-        for(GraphNode n : vertices) {
-            if(n.value.equals(vertex1)) {
-                v1 = true;
-                temp1 = n;
-            }
-            if(n.value.equals(vertex2)) {
-                v2 = true;
-                temp2 = n;
-            }
-        }
+        GraphNode temp1 = index.get(vertex1);
+        GraphNode temp2 = index.get(vertex2);
         
-        if(v1 && v2) {
+        if(temp1 != null && temp2 != null) {
             if(temp1.edges.contains(temp2)) return true;
         }      
 
@@ -219,7 +182,14 @@ public class Graph<E> implements GraphADT<E> {
     }
 
     /**
-     * Returns the edges of a vertices as an Iterator
+     * Returns the neighbors of a vertex as a read-only view of its edges, rather than the copy
+     * GraphADT implementations usually return. Nothing is copied, so:
+     * - the view follows later changes to the vertex's edges, and is empty once the vertex is
+     *   removed
+     * - an iteration of the view throws ConcurrentModificationException if the vertex's edges
+     *   change before it ends, so callers adding or removing edges while they iterate must
+     *   copy the view first
+     * - the view and its iterators throw UnsupportedOperationException on any change
      */
     @Override
     public Iterable<E> getNeighbors(E vertex) {
@@ -227,29 +197,80 @@ public class Graph<E> implements GraphADT<E> {
         if(vertex == null) return null;
         
         // vertex must exist
-        boolean v = false;      
-        GraphNode temp = null;
+        GraphNode temp = index.get(vertex);
         
-        for(GraphNode n : vertices) {
-            if(n.value.equals(vertex)) {
-                v = true;
-                temp = n;
-            }
-        }
-        
-        // if vertex exists retur the iterable list of its edges
-        // vertex1 and vertex2 must exist
-        if(v) {
-            List<E> list = new ArrayList<>();
-            for(Graph<E>.GraphNode edge : temp.edges) {
-                list.add(edge.value);
-            }
-            return list;
+        // if vertex exists return a view of its edges
+        if(temp != null) {
+            return new NeighborView(temp);
         }
         
         return null;
     }
 
+    /**
+     * Calls action with each neighbor of a vertex, without creating a view or an iterator of
+     * the neighbor values
+     * 
+     * @param vertex the vertex
+     * @param action called once per neighbor
+     * @return true if vertex exists, false if it is null or not in the graph
+     */
+    @Override
+    public boolean forEachNeighbor(E vertex, Consumer<? super E> action) {
+        if(vertex == null) return false;
+        GraphNode temp = index.get(vertex);
+        if(temp == null) return false;
+        for(GraphNode edge : temp.edges) {
+            action.accept(edge.value);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of neighbors of a vertex in constant time
+     * 
+     * @param vertex the vertex
+     * @return int the number of neighbors, or -1 if vertex is null or not in the graph
+     */
+    @Override
+    public int degree(E vertex) {
+        if(vertex == null) return -1;
+        GraphNode temp = index.get(vertex);
+        return temp == null ? -1 : temp.edges.size();
+    }
+
+    /**
+     * Read-only view of the neighbor values of a node
+     */
+    private class NeighborView extends AbstractCollection<E> {
+        private GraphNode node;
+
+        private NeighborView(GraphNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            Iterator<GraphNode> edges = node.edges.iterator();
+            return new Iterator<E>() {
+                @Override
+                public boolean hasNext() {
+                    return edges.hasNext();
+                }
+
+                @Override
+                public E next() {
+                    return edges.next().value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return node.edges.size();
+        }
+    }
+
     /**
      * Returns all vertices in an Iterator
      */
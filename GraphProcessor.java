@@ -13,14 +13,26 @@
 ///////////////////////////////////////////////////////////////////////////////
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 
@@ -56,64 +68,113 @@ import java.util.stream.Stream;
 public class GraphProcessor {
 
     /**
-     * Graph which stores the dictionary words and their associated connections
+     * Graph which stores the dictionary words and their associated connections. The graph, the
+     * dictionary and the mode are only changed by methods synchronized on this processor.
      */
     private GraphADT<String> graph;
 
     /**
-     * A HashMap used to store the paths using different vertices as sources
+     * Dense int ids of the words in the graph, given as the words are loaded. Every copy of the
+     * graph the paths are computed on numbers its words with these ids, so the paths work on
+     * ints only and Strings are looked up once per query.
      */
-    private HashMap<String, PathMap> pathMaps;
+    private WordDictionary dictionary;
 
     /**
-     * This class is used to store the data when implementing the djikstra's algorithm using each
-     * vertex as the source
+     * Connected components of the graph by the ids of {@link #dictionary}, joined as every edge
+     * is added. Each copy of the graph the paths are computed on takes the component of every
+     * word from it, so queries between words of different components are answered without a
+     * search.
      */
-    private class PathMap {
-        private String vertex;
-        // Use HashMap to store the distance and predecessor
-        private HashMap<String, Integer> distance;
-        private HashMap<String, String> predecessors;
+    private ComponentIndex components;
 
-        private PathMap(String vertex) {
-            this.vertex = vertex;
-            this.distance = new HashMap<String, Integer>();
-            this.predecessors = new HashMap<String, String>();
+    /**
+     * The components of the graph as of its last change, published after every change like
+     * {@link #paths}, so component lookups read them without waiting for a change or a
+     * precomputation in progress
+     */
+    private volatile ComponentLabels componentLabels;
+
+    /**
+     * Serializes the calls to {@link #refreshGraph(String)}, so the last one to start is the
+     * last one published
+     */
+    private Object refreshLock;
+
+    /**
+     * Path data used to answer the shortest path queries, null before the first precomputation.
+     * A new {@link PathTable} is built by every precomputation and then published here, so queries
+     * never see a partial table. The other modes create theirs on the first query instead.
+     * 
+     * Every kind of path data works on its own copy of the graph and never changes once it is
+     * published, so queries only read this field and take no locks.
+     */
+    private volatile ShortestPaths paths;
+
+    /**
+     * How the shortest path queries are answered
+     */
+    private enum Mode {
+        // all pairs computed by shortestPathPrecomputation, see PathTable, or mapped from a
+        // file by loadPathTables, see MappedPathTable
+        PRECOMPUTED,
+        // search trees computed on the first query from a source and cached, see PathCache
+        ON_DEMAND,
+        // a bidirectional search for every query, see BidirectionalSearch
+        POINT_TO_POINT,
+        // an A* search for every query, guided by the edit distance, see AStarSearch
+        A_STAR
+    }
+
+    /**
+     * The current mode, and the limits of the cache of search trees used in on-demand mode
+     */
+    private volatile Mode mode;
+    private int cacheSources;
+    private long cacheBytes;
+
+    /**
+     * A copy of the components of the graph with the dictionary giving their ids. It never
+     * changes once it is created, so it can be read from any thread.
+     */
+    private static class ComponentLabels {
+        private WordDictionary dictionary;
+        // the label and the component size of every id copied
+        private int[] labels;
+        private int[] sizes;
+        private int count;
+
+        private ComponentLabels(WordDictionary dictionary, ComponentIndex components) {
+            this.dictionary = dictionary;
+            this.labels = components.labels(components.size());
+            this.sizes = new int[labels.length];
+            for (int id = 0; id < labels.length; id++)
+                sizes[id] = components.componentSize(id);
+            this.count = components.count();
         }
 
         /**
-         * A private helper method to get the shortest distance from source to vertex. If not
-         * computed yet or unreachable, return "infinity".
-         * 
-         * @param vertex
-         * @return the shortest distance from source to the vertex
+         * Gets the id of a word, -1 unless it was in the graph when the copy was taken
          */
-        private int getDistance(String vertex) {
-            Integer d = distance.get(vertex);
-            if (d == null)
-                return Integer.MAX_VALUE;
-            else
-                return d;
+        private int id(String word) {
+            int id = dictionary.id(word.toUpperCase());
+            return id < labels.length ? id : -1;
         }
+    }
 
+    /**
+     * Receives progress updates from {@link GraphProcessor#shortestPathPrecomputation(int,
+     * ProgressListener)}
+     */
+    public interface ProgressListener {
         /**
-         * To choose the highest priority successor from a list of successors
-         * @param vertexes
-         * @return the successor with the shortest distance
+         * Called each time the paths from a source are computed. It is called from the worker
+         * threads, possibly concurrently.
+         * 
+         * @param completed number of sources finished so far
+         * @param total number of sources to compute
          */
-        private String getHighestPriority(Set<String> vertexes) {
-            String temp = null;
-            for (String vertex : vertexes) {
-                if (temp == null) {
-                    temp = vertex;
-                } else {
-                    if (getDistance(vertex) < getDistance(temp)) {
-                        temp = vertex;
-                    }
-                }
-            }
-            return temp;
-        }
+        public void progress(int completed, int total);
     }
 
     /**
@@ -122,7 +183,67 @@ public class GraphProcessor {
      */
     public GraphProcessor() {
         this.graph = new Graph<>();
-        this.pathMaps = new HashMap<String, PathMap>();
+        this.dictionary = new WordDictionary();
+        this.components = new ComponentIndex();
+        this.componentLabels = new ComponentLabels(dictionary, components);
+        this.refreshLock = new Object();
+        this.paths = null;
+        this.mode = Mode.PRECOMPUTED;
+    }
+
+    /**
+     * Switches to on-demand mode. Instead of precomputing all pairs, the first query from a
+     * source runs a breadth first search from it and keeps the search tree in a least recently
+     * used cache. The cache keeps at most maxSources trees and at most maxBytes bytes of trees;
+     * a limit that is not positive is ignored, and at least one tree is always kept.
+     * 
+     * In this mode {@link #shortestPathPrecomputation()} only drops the cached trees, and the
+     * cache is dropped whenever {@link #populateGraph(String)} adds words.
+     * 
+     * @param maxSources most sources to keep search trees for
+     * @param maxBytes most bytes the cached search trees may hold
+     */
+    public synchronized void useOnDemandPaths(int maxSources, long maxBytes) {
+        this.mode = Mode.ON_DEMAND;
+        this.cacheSources = maxSources;
+        this.cacheBytes = maxBytes;
+        this.paths = null;
+    }
+
+    /**
+     * Switches back to precomputed paths, the default. {@link #shortestPathPrecomputation()} must
+     * be invoked again before queries return paths.
+     */
+    public synchronized void usePrecomputedPaths() {
+        this.mode = Mode.PRECOMPUTED;
+        this.paths = null;
+    }
+
+    /**
+     * Switches to point-to-point mode. Nothing is precomputed or cached; every query runs a
+     * breadth first search from both words at once until the two searches meet. The results
+     * have the same distances as the precomputed paths, and the same null and -1 cases.
+     * 
+     * In this mode {@link #shortestPathPrecomputation()} does nothing.
+     */
+    public synchronized void usePointToPointPaths() {
+        this.mode = Mode.POINT_TO_POINT;
+        this.paths = null;
+    }
+
+    /**
+     * Switches to A* mode. Like point-to-point mode nothing is precomputed or cached, but every
+     * query searches from the first word towards the second, always expanding next the word
+     * whose distance so far plus edit distance to the second word is least. Each edge is one
+     * edit, so this never overestimates and the distances are the same as the precomputed
+     * paths'. On long queries in large dictionaries far fewer words are expanded than by a
+     * search that does not know where the target is.
+     * 
+     * In this mode {@link #shortestPathPrecomputation()} does nothing.
+     */
+    public synchronized void useAStarPaths() {
+        this.mode = Mode.A_STAR;
+        this.paths = null;
     }
 
     /**
@@ -134,7 +255,9 @@ public class GraphProcessor {
      * 
      * For all possible pairs of vertices, finds if the pair of vertices is adjacent
      * {@link WordProcessor#isAdjacent(String, String)} If a pair is adjacent, adds an undirected
-     * and unweighted edge between the pair of vertices in the graph.
+     * and unweighted edge between the pair of vertices in the graph. Only pairs sharing an
+     * {@link EdgeFinder} bucket are checked, so this grows roughly linearly with the number of
+     * words.
      *
      * Log any issues encountered (print the issue details)
      * 
@@ -142,35 +265,493 @@ public class GraphProcessor {
      * @return Integer the number of vertices (words) added; return -1 if file not found or if
      *         encountering other exceptions
      */
-    public Integer populateGraph(String filepath) {
-    	//stream which has the data from the file - words from file
-        Stream<String> s = null;
-        //getting the word stream from wordProcessor, returning -1 if no stream recei[ved
-		try{
-			s = WordProcessor.getWordStream(filepath);
-		} catch( IOException e ) {
-			System.err.println("file could not be read");
+    public synchronized Integer populateGraph(String filepath) {
+		//array list to store all words, null if the file could not be read
+		ArrayList<String> list = readWords(filepath);
+		if ( list == null )
 			return -1;
-		}
-		//array list to store all words
-		ArrayList<String> list = new ArrayList<String>();
-		list = (ArrayList) s.collect(Collectors.toList());
 		
-		//adding the words to the graph
-		for ( String node : list ) {
-			graph.addVertex(node);
-		}
+		addWords(graph, dictionary, components, list);
+		graphChanged();
+		return list.size();
 
-		//checking all words for edges with all other words and adding them if needed
-		for ( int i = 0; i < list.size(); i++) 
-			for(int j = i; j < list.size(); j++) 
-				if(WordProcessor.isAdjacent(list.get(i), list.get(j))) 
-					graph.addEdge(list.get(i), list.get(j));
+    }
 
-		return list.size();
+    /**
+     * Builds a graph from the words in a file like {@link #populateGraph(String)}, but finds
+     * the edges in parallel.
+     * 
+     * The file is read through {@link WordProcessor#getMappedWordStream(String)}, with its chunks
+     * parsed on a ForkJoinPool with the given parallelism. The word list is then split into
+     * chunks on the same pool, each chunk finds the edges of its words with
+     * {@link EdgeFinder#findEdges(List, ForkJoinPool)}, and the edges found are then added to the
+     * graph from the calling thread.
+     * 
+     * @param filepath file path to the dictionary
+     * @param parallelism number of worker threads used to find edges
+     * @return Integer the number of vertices (words) added; return -1 if file not found or if
+     *         encountering other exceptions
+     */
+    public synchronized Integer populateGraph(String filepath, int parallelism) {
+        if ( parallelism < 1 ) {
+            System.err.println("parallelism must be at least 1");
+            return -1;
+        }
+        ArrayList<String> list;
+        List<String[]> edges;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            list = readMappedWords(filepath, pool);
+            if ( list == null )
+                return -1;
+
+            for ( String node : list ) {
+                addWord(node);
+            }
+
+            //the graph is not thread safe, so workers only collect edges and this thread adds them
+            edges = EdgeFinder.findEdges(list, pool);
+        } finally {
+            pool.shutdown();
+        }
+        for ( String[] edge : edges )
+            addEdge(edge[0], edge[1]);
+
+        graphChanged();
+        return list.size();
+    }
+
+    /**
+     * Saves the words and edges of the graph to a binary snapshot file, see {@link GraphSnapshot}
+     * for the layout. An existing file is replaced.
+     * 
+     * @param filepath file path of the snapshot
+     * @return Integer the number of vertices (words) saved; return -1 if the file could not be
+     *         written
+     */
+    public synchronized Integer saveGraph(String filepath) {
+        try {
+            return GraphSnapshot.save(graph, Paths.get(filepath));
+        } catch( IOException | InvalidPathException e ) {
+            System.err.println("snapshot could not be written: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Adds the words and edges of a snapshot file written by {@link #saveGraph(String)} to the
+     * graph. The edges are read from the file, so nothing is compared, and like
+     * {@link #populateGraph(String)} this adds to the existing graph.
+     * 
+     * @param filepath file path of the snapshot
+     * @return Integer the number of vertices (words) read; return -1, leaving the graph
+     *         unchanged, if the file could not be read or is not a valid snapshot of a supported
+     *         version
+     */
+    public synchronized Integer loadGraph(String filepath) {
+        int count;
+        try {
+            count = GraphSnapshot.load(Paths.get(filepath), graph);
+        } catch( IOException | InvalidPathException e ) {
+            //the file is checked before anything is added, so the graph is unchanged
+            System.err.println("snapshot could not be read: " + e.getMessage());
+            return -1;
+        }
+        //the snapshot's words and edges went straight into the graph, so they are indexed here
+        indexGraph();
+        graphChanged();
+        return count;
+    }
+
+    /**
+     * Saves the precomputed shortest paths to a file that {@link #loadPathTables(String)} can
+     * memory-map, see {@link MappedPathTable} for the layout. An existing file is replaced.
+     * 
+     * @param filepath file path of the path tables
+     * @return Integer the number of vertices (words) saved; return -1 if the paths are not
+     *         precomputed or the file could not be written
+     */
+    public Integer savePathTables(String filepath) {
+        ShortestPaths current = paths;
+        if (!(current instanceof PathTable)) {
+            System.err.println("shortest paths must be precomputed before they are saved");
+            return -1;
+        }
+        try {
+            return MappedPathTable.write((PathTable) current, Paths.get(filepath));
+        } catch( IOException | InvalidPathException e ) {
+            System.err.println("path tables could not be written: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Switches to precomputed mode and answers the shortest path queries from a file written by
+     * {@link #savePathTables(String)}, in place of a precomputation. The file is memory-mapped
+     * and read as queries need it, so the tables are never copied onto the heap and processes
+     * mapping the same file share it. The graph is not read, so it may be left empty.
+     * 
+     * The mapped paths are used until the next precomputation.
+     * 
+     * @param filepath file path of the path tables
+     * @return Integer the number of vertices (words) in the tables; return -1 if the file could
+     *         not be mapped or is not a path table file of a supported version
+     */
+    public synchronized Integer loadPathTables(String filepath) {
+        try {
+            MappedPathTable table = MappedPathTable.open(Paths.get(filepath));
+            this.mode = Mode.PRECOMPUTED;
+            this.paths = table;
+            return table.size();
+        } catch( IOException | InvalidPathException e ) {
+            System.err.println("path tables could not be read: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Replaces the graph with one built from the words in a file, without stopping queries.
+     * 
+     * The new graph and its path data are built off to the side while queries keep being
+     * answered from the current ones: in precomputed mode all pairs are computed, and in the other
+     * modes their path data is created. Both are then published together by one write, so every
+     * query sees either the old words and paths or the new ones. Unlike
+     * {@link #populateGraph(String)} the words of the current graph are not kept.
+     * 
+     * Calls overlapping in time run one after the other, so the graph of the last call is kept.
+     * 
+     * @param filepath file path to the dictionary
+     * @return Integer the number of vertices (words) in the new graph; return -1 if file not
+     *         found or if encountering other exceptions, and the current graph is kept
+     */
+    public Integer refreshGraph(String filepath) {
+        synchronized (refreshLock) {
+            ArrayList<String> list = readWords(filepath);
+            if ( list == null )
+                return -1;
+            GraphADT<String> next = new Graph<>();
+            WordDictionary nextDictionary = new WordDictionary();
+            ComponentIndex nextComponents = new ComponentIndex();
+            addWords(next, nextDictionary, nextComponents, list);
+
+            IntGraph copy = new IntGraph(next, nextDictionary, nextComponents);
+            PathTable table = mode == Mode.PRECOMPUTED ? precompute(copy) : null;
+            ComponentLabels nextLabels = new ComponentLabels(nextDictionary, nextComponents);
+            synchronized (this) {
+                //only the table takes long to build; the other modes' path data is created here,
+                //with the mode and cache limits current at the swap, and the table is dropped if
+                //the mode was switched while it was computed
+                ShortestPaths nextPaths = mode == Mode.PRECOMPUTED ? table : searchPaths(copy);
+                graph = next;
+                dictionary = nextDictionary;
+                components = nextComponents;
+                componentLabels = nextLabels;
+                paths = nextPaths;
+            }
+            return list.size();
+        }
+    }
+
+    /**
+     * Adds the words of a list to a graph, then finds the edges of each word among the words
+     * before it and adds them
+     * 
+     * @param graph the graph to add to
+     * @param dictionary the ids of the words of graph
+     * @param components the components of graph, joined by the edges added
+     * @param list the words to add
+     */
+    private static void addWords(GraphADT<String> graph, WordDictionary dictionary,
+                    ComponentIndex components, List<String> list) {
+        //adding the words to the graph
+        for ( String node : list ) {
+            if ( graph.addVertex(node) != null )
+                components.add(dictionary.intern(node));
+        }
+
+        //finding the edges of each word among the words before it and adding them
+        EdgeFinder finder = new EdgeFinder();
+        for ( String node : list )
+            for ( String neighbor : finder.addWord(node) )
+                if ( graph.addEdge(node, neighbor) )
+                    components.union(dictionary.id(node), dictionary.id(neighbor));
+    }
+
+    /**
+     * Adds a word to the graph and gives it the next id, unless it is already a vertex
+     * 
+     * @param word the word to add
+     */
+    private void addWord(String word) {
+        if ( graph.addVertex(word) != null )
+            components.add(dictionary.intern(word));
+    }
+
+    /**
+     * Adds an edge between two words of the graph and joins their components
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     */
+    private void addEdge(String word1, String word2) {
+        if ( graph.addEdge(word1, word2) )
+            components.union(dictionary.id(word1), dictionary.id(word2));
+    }
+
+    /**
+     * Gives an id to every word of the graph that has none yet and joins the components of
+     * every edge, for words and edges added to the graph directly
+     */
+    private void indexGraph() {
+        for ( String word : graph.getAllVertices() )
+            components.add(dictionary.intern(word));
+        for ( String word : graph.getAllVertices() ) {
+            int id = dictionary.id(word);
+            NeighborAccess.visitNeighbors(graph, word,
+                            neighbor -> components.union(id, dictionary.id(neighbor)));
+        }
+    }
+
+    /**
+     * Publishes the components of the changed graph, and drops the path data of the on-demand,
+     * point-to-point and A* modes, which no longer match the graph. Precomputed paths are kept
+     * until the next precomputation.
+     */
+    private void graphChanged() {
+        componentLabels = new ComponentLabels(dictionary, components);
+        if (mode != Mode.PRECOMPUTED)
+            paths = null;
+    }
+
+    /**
+     * Gets the path data used to answer queries. Outside precomputed mode it is created from the
+     * graph if the graph changed since it was last used.
+     * 
+     * @return ShortestPaths the path data, or null if the paths are not computed yet
+     */
+    private ShortestPaths paths() {
+        ShortestPaths current = paths;
+        if (current == null && mode != Mode.PRECOMPUTED) {
+            // waits for a change of the graph in progress, once per change
+            synchronized (this) {
+                if (paths == null && mode != Mode.PRECOMPUTED)
+                    paths = searchPaths(new IntGraph(graph, dictionary, components));
+                current = paths;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Creates the path data of the on-demand, point-to-point or A* mode for a copy of the graph
+     * 
+     * @param copy the copy to search
+     * @return ShortestPaths the cache of search trees, the bidirectional search or the A* search
+     */
+    private ShortestPaths searchPaths(IntGraph copy) {
+        if (mode == Mode.ON_DEMAND)
+            return new PathCache(copy, cacheSources, cacheBytes);
+        if (mode == Mode.A_STAR)
+            return new AStarSearch(copy);
+        return new BidirectionalSearch(copy);
+    }
+
+    /**
+     * Computes the rows of every source of a copy of the graph
+     * 
+     * @param copy the copy to compute paths in
+     * @return PathTable the complete table
+     */
+    private static PathTable precompute(IntGraph copy) {
+        PathTable table = new PathTable(copy);
+        for (int source = 0; source < table.size(); source++) {
+            // Put the breadth first search rows of that source into the table
+            table.computeRow(source);
+        }
+        return table;
+    }
+
+    /**
+     * Reads all the words of a dictionary file
+     * 
+     * @param filepath file path to the dictionary
+     * @return ArrayList<String> the words in the file, or null if the file could not be read
+     */
+    private ArrayList<String> readWords(String filepath) {
+        //stream which has the data from the file - words from file
+        Stream<String> s = null;
+        //getting the word stream from wordProcessor, returning null if no stream received
+        try{
+            s = WordProcessor.getWordStream(filepath);
+        } catch( IOException e ) {
+            System.err.println("file could not be read");
+            return null;
+        }
+        //array list to store all words, closing the file once they are read
+        try ( Stream<String> words = s ) {
+            return words.collect(Collectors.toCollection(ArrayList::new));
+        } catch( UncheckedIOException e ) {
+            System.err.println("file could not be read");
+            return null;
+        }
+    }
 
+    /**
+     * Reads all the words of a dictionary file through a memory mapping, parsing its chunks in
+     * parallel on pool
+     * 
+     * @param filepath file path to the dictionary
+     * @param pool the pool that parses the chunks
+     * @return ArrayList<String> the words in the file, or null if the file could not be read
+     */
+    private ArrayList<String> readMappedWords(String filepath, ForkJoinPool pool) {
+        try {
+            Stream<String> words = WordProcessor.getMappedWordStream(filepath);
+            //a parallel stream runs on the pool that starts its terminal operation
+            return pool.submit(() -> words.parallel()
+                            .collect(Collectors.toCollection(ArrayList<String>::new))).get();
+        } catch( IOException e ) {
+            System.err.println("file could not be read");
+        } catch( ExecutionException e ) {
+            System.err.println("file could not be read: " + e.getCause());
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            System.err.println("reading the file was interrupted");
+        }
+        return null;
     }
 
+    /**
+     * Builds a graph from the words in a file like {@link #populateGraph(String)}, but as a
+     * pipeline of three stages that run at the same time, joined by bounded queues:
+     * 	1. a reader thread reads and normalizes the words
+     * 	2. a linker thread finds the edges of each word among the words before it, with an
+     * 	   {@link EdgeFinder}
+     * 	3. the calling thread adds each word and its edges to the graph
+     * 
+     * Edges are added as soon as their second word is read, and no stage holds more than
+     * queueCapacity words ahead of the next one, so apart from the graph and the edge finder's
+     * index the memory used does not grow with the file. Only the calling thread changes the
+     * graph. If reading fails part way, the words read so far stay in the graph.
+     * 
+     * @param filepath file path to the dictionary
+     * @param queueCapacity most words waiting between two stages
+     * @return Integer the number of vertices (words) added; return -1 if file not found or if
+     *         encountering other exceptions
+     */
+    public synchronized Integer populateGraphPipelined(String filepath, int queueCapacity) {
+        if ( queueCapacity < 1 ) {
+            System.err.println("queue capacity must be at least 1");
+            return -1;
+        }
+        Stream<String> s = null;
+        try{
+            s = WordProcessor.getWordStream(filepath);
+        } catch( IOException e ) {
+            System.err.println("file could not be read");
+            return -1;
+        }
+        Stream<String> source = s;
+
+        BlockingQueue<String> read = new ArrayBlockingQueue<String>(queueCapacity);
+        BlockingQueue<LinkedWord> linked = new ArrayBlockingQueue<LinkedWord>(queueCapacity);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        ExecutorService stages = Executors.newFixedThreadPool(2);
+
+        //stage 1: reading and normalizing
+        //a stage is only interrupted when the pipeline shuts down, and then nobody waits for its
+        //end marker
+        stages.submit(() -> {
+            try ( Stream<String> words = source ) {
+                Iterator<String> it = words.iterator();
+                while ( it.hasNext() )
+                    read.put(it.next());
+                read.put(END_OF_WORDS);
+            } catch( InterruptedException e ) {
+                return;
+            } catch( Throwable e ) {
+                failure.compareAndSet(null, e);
+                putEnd(read, END_OF_WORDS);
+            }
+        });
+
+        //stage 2: linking each word against the words before it
+        stages.submit(() -> {
+            EdgeFinder finder = new EdgeFinder();
+            try {
+                for ( String word = read.take(); word != END_OF_WORDS; word = read.take() )
+                    linked.put(new LinkedWord(word, finder.addWord(word)));
+                linked.put(END_OF_LINKS);
+            } catch( InterruptedException e ) {
+                return;
+            } catch( Throwable e ) {
+                failure.compareAndSet(null, e);
+                putEnd(linked, END_OF_LINKS);
+            }
+        });
+
+        //stage 3: adding the words and their edges to the graph
+        int count = 0;
+        try {
+            for ( LinkedWord item = linked.take(); item != END_OF_LINKS; item = linked.take() ) {
+                addWord(item.word);
+                for ( String neighbor : item.neighbors )
+                    addEdge(item.word, neighbor);
+                count++;
+            }
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } finally {
+            stages.shutdownNow();
+        }
+        graphChanged();
+
+        if ( failure.get() != null ) {
+            System.err.println("file could not be read: " + failure.get());
+            return -1;
+        }
+        return count;
+    }
+
+    /**
+     * Marks the end of the words read by the reader stage. Compared by reference, so no word
+     * from the file can be mistaken for it.
+     */
+    private static final String END_OF_WORDS = new String("end of words");
+
+    /**
+     * Marks the end of the words passed on by the linker stage
+     */
+    private static final LinkedWord END_OF_LINKS = new LinkedWord(null, null);
+
+    /**
+     * A word and the words before it that it has edges to
+     */
+    private static class LinkedWord {
+        private String word;
+        private List<String> neighbors;
+
+        private LinkedWord(String word, List<String> neighbors) {
+            this.word = word;
+            this.neighbors = neighbors;
+        }
+    }
+
+    /**
+     * Puts the end marker of a failed pipeline stage on its queue, so the next stage stops too.
+     * Gives up if the pipeline is shut down while waiting for room.
+     * 
+     * @param queue the queue to the next stage
+     * @param end the end marker
+     */
+    private static <T> void putEnd(BlockingQueue<T> queue, T end) {
+        try {
+            queue.put(end);
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
     /**
      * Gets the list of words that create the shortest path between word1 and word2
@@ -193,26 +774,13 @@ public class GraphProcessor {
         // if word1 == word2, return null list 
         if (word1.equals(word2))
             return null;
-        else {
-            // Get the djikstra's map for word1
-            PathMap map = pathMaps.get(word1);
-            ArrayList<String> path = new ArrayList<String>();
-            // If word2 is unreachable return null list
-            if (map == null || map.predecessors == null || map.predecessors.get(word2) == null)
-                return null;
-            // else go through the predecessors of word2 until it gets to word1
-            String pred = word2;
-            path.add(pred);
-            while (map.predecessors.get(pred) != null) {
-                pred = map.predecessors.get(pred);
-                path.add(pred);
-            }
-
-            // return the reverse of the path list to show the correct order
-            Collections.reverse(path);
-            return path;
-        }
 
+        // If the paths are not computed yet or word2 is unreachable return null list
+        ShortestPaths current = paths();
+        if (current == null)
+            return null;
+        // else go through the predecessors of word2 until it gets to word1
+        return current.getPath(word1, word2);
     }
 
     /**
@@ -224,55 +792,347 @@ public class GraphProcessor {
      * Distance = -1 if no path found between words (true also for word1=word2) Both the arguments
      * will always be present in the graph.
      * 
+     * The distance is read from the stored distance data and no path is built: with precomputed
+     * or mapped paths this takes constant time after looking up the two words, and allocates
+     * nothing for words that are already upper case.
+     * 
      * @param word1 first word
      * @param word2 second word
      * @return Integer distance
      */
     public Integer getShortestDistance(String word1, String word2) {
-        // If there's no path between word1 and word2, return -1
-        if (getShortestPath(word1, word2) == null)
+        //Convert both strings to uppercase
+        word1 = word1.toUpperCase();
+        word2 = word2.toUpperCase();
+
+        // If word1 == word2 or the paths are not computed yet, return -1
+        if (word1.equals(word2))
+            return -1;
+        ShortestPaths current = paths();
+        if (current == null)
             return -1;
 
-        // else return the length of the path
-        return getShortestPath(word1, word2).size()-1;
+        // else read the distance from the table, -1 if there's no path between word1 and word2
+        return current.getDistance(word1, word2);
+    }
+
+    /**
+     * Gets the distances from one word to many, like {@link #getShortestDistance(String, String)}
+     * for each target, but the source is normalized and looked up once and its distance row or
+     * search tree is read once for all targets.
+     * 
+     * @param word the source word
+     * @param targets the target words
+     * @return int[] the distance to each target, -1 if it is equal to word, unknown or
+     *         unreachable
+     */
+    public int[] getShortestDistances(String word, String[] targets) {
+        String source = word.toUpperCase();
+        String[] normalized = upperCase(targets);
+        int[] distances = new int[targets.length];
+        distances(paths(), source, normalized, distances);
+        return distances;
+    }
+
+    /**
+     * Gets the paths from one word to many, like {@link #getShortestPath(String, String)} for
+     * each target, but the source is normalized and looked up once and its predecessor row or
+     * search tree is read once for all targets.
+     * 
+     * @param word the source word
+     * @param targets the target words
+     * @return List<List<String>> the path to each target, null if it is equal to word, unknown
+     *         or unreachable
+     */
+    public List<List<String>> getShortestPaths(String word, String[] targets) {
+        String source = word.toUpperCase();
+        String[] normalized = upperCase(targets);
+        ShortestPaths current = paths();
+        if (current == null)
+            return new ArrayList<List<String>>(Collections.nCopies(targets.length, (List<String>) null));
+        List<List<String>> result = current.getPaths(source, normalized);
+        for (int i = 0; i < targets.length; i++)
+            if (normalized[i].equals(source))
+                result.set(i, null);
+        return result;
+    }
+
+    /**
+     * Gets the distances of a list of pairs, words1[i] to words2[i]. The pairs are grouped by
+     * their first word, each group reads its source's data once as in
+     * {@link #getShortestDistances(String, String[])}, and the groups run in parallel.
+     * 
+     * @param words1 the first word of each pair
+     * @param words2 the second word of each pair
+     * @param parallelism number of worker threads the groups run on
+     * @return int[] the distance of each pair, -1 if its words are equal, unknown or unreachable;
+     *         null if the lists have different lengths, parallelism is less than 1 or the
+     *         queries were interrupted
+     */
+    public int[] getShortestDistances(String[] words1, String[] words2, int parallelism) {
+        if (words1.length != words2.length) {
+            System.err.println("both lists of words must have the same length");
+            return null;
+        }
+        if (parallelism < 1) {
+            System.err.println("parallelism must be at least 1");
+            return null;
+        }
+        String[] sources = upperCase(words1);
+        String[] targets = upperCase(words2);
+
+        // number the distinct sources, then sort the pair indices by source
+        HashMap<String, Integer> groups = new HashMap<String, Integer>();
+        int[] group = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            Integer g = groups.putIfAbsent(sources[i], groups.size());
+            group[i] = g == null ? groups.size() - 1 : g;
+        }
+        int[] start = new int[groups.size() + 1];
+        for (int g : group)
+            start[g + 1]++;
+        for (int g = 0; g < groups.size(); g++)
+            start[g + 1] += start[g];
+        int[] order = new int[sources.length];
+        int[] filled = Arrays.copyOf(start, groups.size());
+        for (int i = 0; i < sources.length; i++)
+            order[filled[group[i]]++] = i;
+
+        ShortestPaths current = paths();
+        int[] distances = new int[sources.length];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, groups.size()).parallel().forEach(g -> {
+                int from = start[g], to = start[g + 1];
+                String[] groupTargets = new String[to - from];
+                for (int k = from; k < to; k++)
+                    groupTargets[k - from] = targets[order[k]];
+                int[] groupDistances = new int[to - from];
+                distances(current, sources[order[from]], groupTargets, groupDistances);
+                // every pair belongs to one group, so the groups write different entries
+                for (int k = from; k < to; k++)
+                    distances[order[k]] = groupDistances[k - from];
+            })).get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            System.err.println("the queries were interrupted");
+            return null;
+        } catch( ExecutionException e ) {
+            System.err.println("the queries failed: " + e.getCause());
+            return null;
+        } finally {
+            pool.shutdown();
+        }
+        return distances;
+    }
+
+    /**
+     * Fills in the distances from one normalized source to many normalized targets, -1 for
+     * targets equal to the source and when the paths are not computed yet
+     */
+    private static void distances(ShortestPaths current, String source, String[] targets,
+                    int[] distances) {
+        if (current == null) {
+            Arrays.fill(distances, -1);
+            return;
+        }
+        current.getDistances(source, targets, distances);
+        for (int i = 0; i < targets.length; i++)
+            if (targets[i].equals(source))
+                distances[i] = -1;
+    }
+
+    /**
+     * Returns the upper case of every word
+     */
+    private static String[] upperCase(String[] words) {
+        String[] upper = new String[words.length];
+        for (int i = 0; i < words.length; i++)
+            upper[i] = words[i].toUpperCase();
+        return upper;
+    }
+
+    /**
+     * Gets the connected component of a word. Two words of the graph have the same component
+     * exactly when there is a path between them, and queries between words of different
+     * components return null or -1 without a search. The number of a component may change when
+     * words are added and it is joined with another.
+     * 
+     * The components follow every word and edge added to the graph, whether or not the paths
+     * were computed since. They are read from a copy published after every change, so this never
+     * waits for a change or a precomputation in progress.
+     * 
+     * @param word the word
+     * @return int the number of the word's component, -1 if the word is not in the graph
+     */
+    public int componentOf(String word) {
+        ComponentLabels current = componentLabels;
+        int id = current.id(word);
+        return id < 0 ? -1 : current.labels[id];
+    }
+
+    /**
+     * Gets the number of words in the connected component of a word, itself included
+     * 
+     * @param word the word
+     * @return int the number of words connected to it, -1 if the word is not in the graph
+     */
+    public int getComponentSize(String word) {
+        ComponentLabels current = componentLabels;
+        int id = current.id(word);
+        return id < 0 ? -1 : current.sizes[id];
+    }
+
+    /**
+     * Returns the number of connected components of the graph, counting every word without
+     * edges as a component of its own
+     * 
+     * @return int the number of components, 0 if the graph is empty
+     */
+    public int getComponentCount() {
+        return componentLabels.count;
+    }
+
+    /**
+     * Returns the exact number of bytes held by the distance and predecessor tables of the last
+     * precomputation, see {@link PathTable#getFootprint()}. In on-demand mode this is the size of
+     * the search trees currently cached, and for tables mapped by
+     * {@link #loadPathTables(String)} the size of the mapped path data.
+     * 
+     * @return long number of bytes, 0 if the paths are not computed yet
+     */
+    public long getPathTableBytes() {
+        ShortestPaths current = paths;
+        return current == null ? 0 : current.getFootprint();
+    }
+
+    /**
+     * Returns the number of on-demand queries answered from a cached search tree since the cache
+     * was last dropped
+     * 
+     * @return long number of cache hits, 0 outside on-demand mode
+     */
+    public long getPathCacheHits() {
+        ShortestPaths current = paths;
+        return current instanceof PathCache ? ((PathCache) current).getHits() : 0;
+    }
+
+    /**
+     * Returns the number of on-demand queries that had to search their source since the cache
+     * was last dropped
+     * 
+     * @return long number of cache misses, 0 outside on-demand mode
+     */
+    public long getPathCacheMisses() {
+        ShortestPaths current = paths;
+        return current instanceof PathCache ? ((PathCache) current).getMisses() : 0;
+    }
+
+    /**
+     * Returns the number of search trees evicted to stay within the cache limits since the cache
+     * was last dropped
+     * 
+     * @return long number of cache evictions, 0 outside on-demand mode
+     */
+    public long getPathCacheEvictions() {
+        ShortestPaths current = paths;
+        return current instanceof PathCache ? ((PathCache) current).getEvictions() : 0;
     }
 
     /**
      * Computes shortest paths and distances between all possible pairs of vertices. This method is
-     * called after every set of updates in the graph to recompute the path information. Any
-     * shortest path algorithm can be used (Djikstra's or Floyd-Warshall recommended).
-     */
-    public void shortestPathPrecomputation() {
-        for (String vertex : graph.getAllVertices()) {
-            // Set Up before starting to compute
-            PathMap map = new PathMap(vertex);
-            // Create 2 sets to store the visited nodes and the unvisitednode set is basically a priority queue
-            Set<String> visitedNodes = new HashSet<>();
-            Set<String> unVisitedNodes = new HashSet<>();
-            
-            // Put the source vertex into the map
-            map.distance.put(map.vertex, 0);
-            unVisitedNodes.add(map.vertex);
-            
-            // While the priority queue is not empty
-            while (unVisitedNodes.size() > 0) {
-                // Get the minimal distance successor
-                String node = map.getHighestPriority(unVisitedNodes);
-                // Remove the successor and mark it as visited
-                unVisitedNodes.remove(node);
-                visitedNodes.add(node);
-                for (String successor : graph.getNeighbors(node)) { // for each unvisited successor of the vertex
-                    if (map.getDistance(node) + 1 < map.getDistance(successor)) {
-                        // if the distance can be reduced, update the distance
-                        map.distance.put(successor, map.getDistance(node) + 1);
-                        map.predecessors.put(successor, node);
-                        // put that successor into the priority queue
-                        unVisitedNodes.add(successor);
-                    }
+     * called after every set of updates in the graph to recompute the path information. Every edge
+     * has weight 1, so a breadth first search from each vertex finds the same distances as
+     * Djikstra's in O(V+E) per source.
+     * 
+     * The paths are stored per connected component, see {@link PathTable}, so they take the sum
+     * of the squared component sizes rather than V^2, and each search only visits the component
+     * of its source.
+     * 
+     * In the on-demand, point-to-point and A* modes nothing is precomputed; their path data is
+     * dropped instead and created again on the next query.
+     */
+    public synchronized void shortestPathPrecomputation() {
+        if (mode != Mode.PRECOMPUTED) {
+            paths = null;
+            return;
+        }
+        paths = precompute(new IntGraph(graph, dictionary, components));
+    }
+
+    /**
+     * Brings the precomputed paths up to date after {@link #populateGraph(String)} added words,
+     * instead of recomputing every source. Sources the new edges cannot bring closer to any word
+     * keep their paths, the other sources only have the distances that got shorter repaired, and
+     * only the new words are searched from scratch. Without an earlier precomputation this is the
+     * same as {@link #shortestPathPrecomputation()}.
+     */
+    public synchronized void shortestPathUpdate() {
+        ShortestPaths current = paths;
+        if (mode != Mode.PRECOMPUTED || !(current instanceof PathTable)) {
+            shortestPathPrecomputation();
+            return;
+        }
+        PathTable previous = (PathTable) current;
+        paths = PathTable.update(previous, new IntGraph(graph, previous.getGraph(), components));
+    }
+
+    /**
+     * Computes the same shortest path data as {@link #shortestPathPrecomputation()} with the
+     * sources spread over several threads.
+     * 
+     * Each worker takes the next source that is not computed yet and stores its result in that
+     * source's own rows of the table, so workers never write to the same memory. The sources are
+     * taken component by component, largest first, see {@link PathTable#sources()}: the sources
+     * of the largest component have the longest searches, so they start first and the small
+     * components fill in around them at the end. Once every source is done the finished table
+     * is published for queries. If the computation is interrupted the
+     * previous table is kept.
+     * 
+     * @param threads number of worker threads, at least 1
+     * @param listener notified after every source, may be null
+     */
+    public synchronized void shortestPathPrecomputation(int threads, ProgressListener listener) {
+        if (threads < 1) {
+            System.err.println("number of threads must be at least 1");
+            return;
+        }
+        if (mode != Mode.PRECOMPUTED) {
+            paths = null;
+            return;
+        }
+        // the graph is only read while it is copied
+        PathTable table = new PathTable(new IntGraph(graph, dictionary, components));
+        int[] sources = table.sources();
+        int total = sources.length;
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                for (int i = next.getAndIncrement(); i < total; i = next.getAndIncrement()) {
+                    table.computeRow(sources[i]);
+                    int done = completed.incrementAndGet();
+                    if (listener != null)
+                        listener.progress(done, total);
                 }
-            }
-            // Put the djikstra's table of that source into the list of maps
-            pathMaps.put(vertex, map);
+            }));
+        }
+        try {
+            for (Future<?> worker : workers)
+                worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("shortest path precomputation was interrupted");
+            return;
+        } catch (ExecutionException e) {
+            System.err.println("shortest path precomputation failed: " + e.getCause());
+            return;
+        } finally {
+            pool.shutdownNow();
         }
+        paths = table;
     }
 }
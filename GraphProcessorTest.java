@@ -15,19 +15,33 @@
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.junit.After;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
 /**
  * Junit test class to test the GraphProcessor and WordProcessor classes
  *
@@ -364,4 +378,831 @@ public class GraphProcessorTest
 			// Caught exception as expected
 		}
 	}
+	
+	/**
+	 * Tests that the EdgeFinder finds exactly the adjacent pairs that checking every
+	 * pair of words with isAdjacent() finds
+	 */
+	@Test
+	public void test19_edge_finder_matches_pairwise_check()
+	{
+		try {
+			List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+			Set<String> expected = new HashSet<String>();
+			// the file repeats some words, and the graph never adds an edge from a word to itself
+			for(int i = 0; i < words.size(); i++)
+				for(int j = i + 1; j < words.size(); j++)
+					if(!words.get(i).equals(words.get(j)) && WordProcessor.isAdjacent(words.get(i), words.get(j)))
+						expected.add(edge(words.get(i), words.get(j)));
+			
+			Set<String> actual = new HashSet<String>();
+			EdgeFinder finder = new EdgeFinder();
+			for(int j = 0; j < words.size(); j++)
+				for(String neighbor : finder.addWord(words.get(j)))
+					if(!actual.add(edge(neighbor, words.get(j))))
+						fail("EdgeFinder returned the edge " + edge(neighbor, words.get(j)) + " twice");
+			
+			if(!expected.equals(actual))
+				fail("EdgeFinder found " + actual.size() + " edges instead of " + expected.size());
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+	}
+	
+	/**
+	 * Tests that populating the graph in parallel gives the same distances between
+	 * every pair of words as populating it on one thread
+	 */
+	@Test
+	public void test20_parallel_populate_matches_sequential()
+	{
+		GraphProcessor parallel = new GraphProcessor();
+		int wordCount = parallel.populateGraph("word_list.txt", 4);
+		if(wordCount != 441)
+			fail("populateGraph() in parallel did not add the correct number of words to the graph");
+		graphProcessor.populateGraph("word_list.txt");
+		graphProcessor.shortestPathPrecomputation();
+		parallel.shortestPathPrecomputation();
+		
+		try {
+			List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+			for(String word1 : words)
+				for(String word2 : words)
+					if(!graphProcessor.getShortestDistance(word1, word2).equals(parallel.getShortestDistance(word1, word2)))
+						fail("Parallel populateGraph() gave a different distance between " + word1 + " and " + word2);
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+	}
+	
+	/**
+	 * Tests that populateGraph() returns -1 when the parallelism is not positive
+	 */
+	@Test
+	public void test21_parallel_populate_invalid_parallelism()
+	{
+		if(graphProcessor.populateGraph("word_list.txt", 0) != -1)
+			fail("populateGraph() failed to return -1 for a parallelism of 0");
+	}
+	
+	/**
+	 * Tests that the multi-threaded precomputation gives the same distances as the single
+	 * threaded one and reports progress for every source
+	 */
+	@Test
+	public void test22_parallel_precomputation_matches_sequential()
+	{
+		GraphProcessor parallel = new GraphProcessor();
+		graphProcessor.populateGraph("test_words.txt");
+		parallel.populateGraph("test_words.txt");
+		graphProcessor.shortestPathPrecomputation();
+		AtomicInteger reported = new AtomicInteger();
+		parallel.shortestPathPrecomputation(3, (completed, total) -> {
+			reported.incrementAndGet();
+			if(total != 15 || completed < 1 || completed > total)
+				fail("Progress reported " + completed + " of " + total + " sources");
+		});
+		if(reported.get() != 15)
+			fail("Progress was reported " + reported.get() + " times instead of 15");
+		
+		try {
+			List<String> words = WordProcessor.getWordStream("test_words.txt").collect(Collectors.toList());
+			for(String word1 : words)
+				for(String word2 : words)
+					if(!graphProcessor.getShortestDistance(word1, word2).equals(parallel.getShortestDistance(word1, word2)))
+						fail("Parallel precomputation gave a different distance between " + word1 + " and " + word2);
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+	}
+	
+	/**
+	 * Tests that the size reported for the path tables matches the array layout, partitioned
+	 * into the components of 12, 2 and 1 words of test_words.txt: the component and local
+	 * number of the 15 words take 80 bytes each and the array of partitions 32 bytes. Each
+	 * partition is a 24 byte object with 3 arrays of one int or reference per word, and each of
+	 * its sources has a short row and an int row one entry per word long
+	 */
+	@Test
+	public void test23_path_table_footprint()
+	{
+		if(graphProcessor.getPathTableBytes() != 0)
+			fail("getPathTableBytes() should be 0 before the precomputation");
+		graphProcessor.populateGraph("test_words.txt");
+		graphProcessor.shortestPathPrecomputation();
+		long expected = 2 * 80 + 32
+				+ 24 + 3 * 64 + 12 * (40 + 64)
+				+ 24 + 3 * 24 + 2 * (24 + 24)
+				+ 24 + 3 * 24 + 1 * (24 + 24);
+		long actual = graphProcessor.getPathTableBytes();
+		if(actual != expected)
+			fail("getPathTableBytes() returned " + actual + " instead of " + expected);
+	}
+	
+	/**
+	 * Tests that on-demand mode gives the same distances as the precomputed paths
+	 * without a precomputation, and counts cache hits, misses and evictions
+	 */
+	@Test
+	public void test24_on_demand_paths_match_precomputed()
+	{
+		GraphProcessor onDemand = new GraphProcessor();
+		onDemand.useOnDemandPaths(4, 0);
+		graphProcessor.populateGraph("test_words.txt");
+		onDemand.populateGraph("test_words.txt");
+		graphProcessor.shortestPathPrecomputation();
+		
+		try {
+			List<String> words = WordProcessor.getWordStream("test_words.txt").collect(Collectors.toList());
+			for(String word1 : words)
+				for(String word2 : words)
+					if(!graphProcessor.getShortestDistance(word1, word2).equals(onDemand.getShortestDistance(word1, word2)))
+						fail("On-demand mode gave a different distance between " + word1 + " and " + word2);
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+		
+		// each word is the source of 14 queries in a row, but only those within its component
+		// search: 12 words have 11 such queries, hungry and hangry 1 and hunger none. The first
+		// of them misses and the others hit, and only the last 4 trees are still cached
+		if(onDemand.getPathCacheMisses() != 14)
+			fail("On-demand mode missed " + onDemand.getPathCacheMisses() + " times instead of 14");
+		if(onDemand.getPathCacheEvictions() != 10)
+			fail("On-demand mode evicted " + onDemand.getPathCacheEvictions() + " trees instead of 10");
+		if(onDemand.getPathCacheHits() != 12 * 10)
+			fail("On-demand mode hit " + onDemand.getPathCacheHits() + " times instead of " + (12 * 10));
+		
+		List<String> path = onDemand.getShortestPath("gate", "bin");
+		if(path == null || path.size() != 5)
+			fail("getShortestPath() in on-demand mode returned " + path);
+	}
+	
+	/**
+	 * Tests that point-to-point mode gives the same distances as the precomputed paths,
+	 * including -1 for unreachable and equal words, and returns valid paths
+	 */
+	@Test
+	public void test25_point_to_point_matches_precomputed()
+	{
+		GraphProcessor pointToPoint = new GraphProcessor();
+		pointToPoint.usePointToPointPaths();
+		graphProcessor.populateGraph("word_list.txt");
+		pointToPoint.populateGraph("word_list.txt");
+		graphProcessor.shortestPathPrecomputation();
+		
+		try {
+			List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+			for(String word1 : words)
+				for(String word2 : words) {
+					int expected = graphProcessor.getShortestDistance(word1, word2);
+					if(expected != pointToPoint.getShortestDistance(word1, word2))
+						fail("Point-to-point mode gave a different distance between " + word1 + " and " + word2);
+					List<String> path = pointToPoint.getShortestPath(word1, word2);
+					if(expected == -1 ? path != null : !isPath(path, word1, word2, expected))
+						fail("Point-to-point mode gave the wrong path " + path + " between " + word1 + " and " + word2);
+				}
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+	}
+	
+	/**
+	 * Helper that checks a list of words is a ladder of the given length from word1 to word2
+	 */
+	private static boolean isPath(List<String> path, String word1, String word2, int distance)
+	{
+		if(path == null || path.size() != distance + 1)
+			return false;
+		if(!path.get(0).equals(word1) || !path.get(distance).equals(word2))
+			return false;
+		for(int x = 0; x < distance; x++)
+			if(!WordProcessor.isAdjacent(path.get(x), path.get(x + 1)))
+				return false;
+		return true;
+	}
+	
+	/**
+	 * Tests that updating the paths after adding a second file gives the same distances
+	 * as precomputing them from scratch
+	 */
+	@Test
+	public void test26_incremental_update_matches_precomputation()
+	{
+		GraphProcessor incremental = new GraphProcessor();
+		incremental.populateGraph("word_list.txt");
+		incremental.shortestPathPrecomputation();
+		incremental.populateGraph("test_words.txt");
+		incremental.shortestPathUpdate();
+		graphProcessor.populateGraph("word_list.txt");
+		graphProcessor.populateGraph("test_words.txt");
+		graphProcessor.shortestPathPrecomputation();
+		
+		try {
+			List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+			words.addAll(WordProcessor.getWordStream("test_words.txt").collect(Collectors.toList()));
+			for(String word1 : words)
+				for(String word2 : words) {
+					int expected = graphProcessor.getShortestDistance(word1, word2);
+					if(expected != incremental.getShortestDistance(word1, word2))
+						fail("shortestPathUpdate() gave a different distance between " + word1 + " and " + word2);
+					List<String> path = incremental.getShortestPath(word1, word2);
+					if(expected == -1 ? path != null : !isPath(path, word1, word2, expected))
+						fail("shortestPathUpdate() gave the wrong path " + path + " between " + word1 + " and " + word2);
+				}
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+	}
+	
+	/**
+	 * Tests that the pipelined populateGraph adds the same words and edges as the
+	 * sequential one, even with very small queues between the stages
+	 */
+	@Test
+	public void test27_pipelined_populate_matches_sequential()
+	{
+		GraphProcessor pipelined = new GraphProcessor();
+		int wordCount = pipelined.populateGraphPipelined("word_list.txt", 2);
+		if(wordCount != 441)
+			fail("populateGraphPipelined() did not add the correct number of words to the graph");
+		if(pipelined.populateGraphPipelined("RandomFilePath321", 2) != -1)
+			fail("populateGraphPipelined() failed to return -1 for an invalid file path");
+		graphProcessor.populateGraph("word_list.txt");
+		graphProcessor.shortestPathPrecomputation();
+		pipelined.shortestPathPrecomputation();
+		
+		try {
+			List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+			for(String word1 : words)
+				for(String word2 : words)
+					if(!graphProcessor.getShortestDistance(word1, word2).equals(pipelined.getShortestDistance(word1, word2)))
+						fail("populateGraphPipelined() gave a different distance between " + word1 + " and " + word2);
+		} catch (IOException e) {
+			fail("getWordStream() failed to find the correct file");
+		}
+	}
+	
+	/**
+	 * Tests that the memory-mapped reader returns the same words as getWordStream(),
+	 * also when the file is split into many small chunks parsed in parallel
+	 */
+	@Test
+	public void test28_mapped_word_stream_matches_word_stream()
+	{
+		try {
+			for(String file : new String[] {"word_list.txt", "test_words.txt", "stream_test.txt"}) {
+				List<String> expected = WordProcessor.getWordStream(file).collect(Collectors.toList());
+				if(!expected.equals(WordProcessor.getMappedWordStream(file).collect(Collectors.toList())))
+					fail("getMappedWordStream() returned different words for " + file);
+				if(!expected.equals(WordProcessor.getMappedWordStream(file, 16).parallel().collect(Collectors.toList())))
+					fail("getMappedWordStream() returned different words for " + file + " in small chunks");
+			}
+		} catch (IOException e) {
+			fail("getMappedWordStream() failed to find the correct file");
+		}
+		try {
+			WordProcessor.getMappedWordStream("RandomFileXYZ123");
+			fail("getMappedWordStream() did not throw an IOException when the file did not exist");
+		} catch (IOException e) {
+			// Caught exception as expected
+		}
+	}
+	
+	/**
+	 * Tests that a graph saved to a snapshot and loaded into a new GraphProcessor
+	 * gives the same distances as the graph it was saved from
+	 */
+	@Test
+	public void test29_snapshot_round_trip() throws IOException
+	{
+		File snapshot = File.createTempFile("graph", ".snapshot");
+		snapshot.deleteOnExit();
+		graphProcessor.populateGraph("word_list.txt");
+		if(graphProcessor.saveGraph(snapshot.getPath()) != 427)
+			fail("saveGraph() did not save every distinct word");
+		
+		GraphProcessor loaded = new GraphProcessor();
+		if(loaded.loadGraph(snapshot.getPath()) != 427)
+			fail("loadGraph() did not read every distinct word");
+		if(loaded.loadGraph("word_list.txt") != -1)
+			fail("loadGraph() failed to return -1 for a file that is not a snapshot");
+		if(loaded.loadGraph("RandomFilePath321") != -1)
+			fail("loadGraph() failed to return -1 for an invalid file path");
+		graphProcessor.shortestPathPrecomputation();
+		loaded.shortestPathPrecomputation();
+		
+		List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+		for(String word1 : words)
+			for(String word2 : words)
+				if(!graphProcessor.getShortestDistance(word1, word2).equals(loaded.getShortestDistance(word1, word2)))
+					fail("The loaded snapshot gave a different distance between " + word1 + " and " + word2);
+	}
+	
+	/**
+	 * Tests that path tables saved to a file and mapped by another GraphProcessor, with an empty
+	 * graph, answer the same distances and give valid paths
+	 */
+	@Test
+	public void test30_mapped_path_tables_match_precomputation() throws IOException
+	{
+		File tables = File.createTempFile("paths", ".table");
+		tables.deleteOnExit();
+		graphProcessor.populateGraph("word_list.txt");
+		if(graphProcessor.savePathTables(tables.getPath()) != -1)
+			fail("savePathTables() failed to return -1 before the precomputation");
+		graphProcessor.shortestPathPrecomputation();
+		if(graphProcessor.savePathTables(tables.getPath()) != 427)
+			fail("savePathTables() did not save every distinct word");
+		
+		GraphProcessor mapped = new GraphProcessor();
+		if(mapped.loadPathTables("word_list.txt") != -1)
+			fail("loadPathTables() failed to return -1 for a file that is not a path table");
+		if(mapped.loadPathTables(tables.getPath()) != 427)
+			fail("loadPathTables() did not map every distinct word");
+		// each component of n words gets a block of its n members, n^2 distances and n^2
+		// predecessors, after the partition and local number of every word and a directory
+		List<String> words = WordProcessor.getWordStream("word_list.txt").distinct().collect(Collectors.toList());
+		Map<Integer, Integer> sizes = new HashMap<Integer, Integer>();
+		long wordBytes = 0;
+		for(String word : words) {
+			sizes.put(graphProcessor.componentOf(word), graphProcessor.getComponentSize(word));
+			wordBytes += word.getBytes(StandardCharsets.UTF_8).length;
+		}
+		long footprint = 8L * 427 + (12L * sizes.size() + 7) / 8 * 8;
+		for(long n : sizes.values())
+			footprint += (4 * n + 7) / 8 * 8 + (2 * n * n + 7) / 8 * 8 + 4 * n * n;
+		if(mapped.getPathTableBytes() != footprint)
+			fail("getPathTableBytes() did not count the mapped partitions");
+		if(footprint >= 6L * 427 * 427)
+			fail("The mapped partitions are no smaller than a table of every pair");
+		if(tables.length() != (20 + 4 * 428 + wordBytes + 7) / 8 * 8 + footprint)
+			fail("The path table file does not hold one block per component");
+		// replacing the file must leave the mapping of the old one readable, and no temporary file
+		if(graphProcessor.savePathTables(tables.getPath()) != 427)
+			fail("savePathTables() failed to replace a mapped file");
+		if(tables.getParentFile().list((dir, name) -> name.startsWith(tables.getName() + ".")).length != 0)
+			fail("savePathTables() left a temporary file behind");
+		
+		for(String word1 : words)
+			for(String word2 : words) {
+				int expected = graphProcessor.getShortestDistance(word1, word2);
+				if(mapped.getShortestDistance(word1, word2) != expected)
+					fail("The mapped tables gave a different distance between " + word1 + " and " + word2);
+				List<String> path = mapped.getShortestPath(word1, word2);
+				if(expected == -1 ? path != null : !isPath(path, word1, word2, expected))
+					fail("The mapped tables gave the wrong path " + path + " between " + word1 + " and " + word2);
+			}
+		if(mapped.getShortestDistance(words.get(0), "NOTAWORD") != -1)
+			fail("The mapped tables failed to return -1 for a word they do not hold");
+	}
+	
+	/**
+	 * Tests that isAdjacent() compares words by their chars, so equal words held in different
+	 * String objects are not adjacent either
+	 */
+	@Test
+	public void test31_equal_but_distinct_strings_are_not_adjacent()
+	{
+		if(WordProcessor.isAdjacent("HI", new String("HI")))
+			fail("The isAdjacent() method failed to recognize that equal words are not adjacent");
+		if(WordProcessor.isAdjacentChars("HI".toCharArray(), "HI".toCharArray()))
+			fail("The isAdjacentChars() method failed to recognize that equal words are not adjacent");
+		byte[] bytes = "HIHI".getBytes();
+		if(WordProcessor.isAdjacentBytes(bytes, 0, 2, bytes, 2, 2))
+			fail("The isAdjacentBytes() method failed to recognize that equal words are not adjacent");
+		String[] candidates = { new String("HI") };
+		if(WordProcessor.findAdjacent("HI", candidates, 0, 1, new int[1]) != 0)
+			fail("The findAdjacent() method failed to recognize that equal words are not adjacent");
+	}
+	
+	/**
+	 * Tests that isAdjacentChars(), isAdjacentBytes() and findAdjacent() agree with the String form
+	 * on every pair of words in word_list.txt
+	 */
+	@Test
+	public void test32_adjacency_views_and_batch_match_isAdjacent() throws IOException
+	{
+		String[] words = WordProcessor.getWordStream("word_list.txt").toArray(String[]::new);
+		int[] matches = new int[words.length];
+		for(String word : words) {
+			char[] chars = word.toCharArray();
+			byte[] bytes = ("#" + word).getBytes("ISO-8859-1");
+			int count = WordProcessor.findAdjacent(word, words, 0, words.length, matches);
+			int next = 0;
+			for(int i = 0; i < words.length; i++) {
+				boolean expected = WordProcessor.isAdjacent(word, words[i]);
+				if(WordProcessor.isAdjacentChars(chars, words[i].toCharArray()) != expected)
+					fail("The isAdjacentChars() method disagreed on " + word + " and " + words[i]);
+				byte[] other = words[i].getBytes("ISO-8859-1");
+				if(WordProcessor.isAdjacentBytes(bytes, 1, bytes.length - 1, other, 0, other.length) != expected)
+					fail("The isAdjacentBytes() method disagreed on " + word + " and " + words[i]);
+				if(expected && (next == count || matches[next++] != i))
+					fail("findAdjacent() missed " + words[i] + " for " + word);
+			}
+			if(next != count)
+				fail("findAdjacent() found words that are not adjacent to " + word);
+		}
+	}
+	
+	/**
+	 * Tests that a PackedWords block of each word length in word_list.txt finds the same
+	 * replacements as findAdjacent(), including words of more than 8 chars and a block that
+	 * cannot be packed
+	 */
+	@Test
+	public void test33_packed_words_match_find_adjacent() throws IOException
+	{
+		Map<Integer, List<String>> byLength = WordProcessor.getWordStream("word_list.txt")
+				.collect(Collectors.groupingBy(String::length));
+		byLength.put(2, Arrays.asList("\u0100B", "AB", "\u0100C", "AC"));
+		for(List<String> block : byLength.values()) {
+			PackedWords packed = new PackedWords(block);
+			String[] words = block.toArray(new String[0]);
+			int[] expected = new int[words.length];
+			int[] actual = new int[words.length];
+			for(String word : words) {
+				int count = WordProcessor.findAdjacent(word, words, 0, words.length, expected);
+				if(packed.findAdjacent(word, actual) != count)
+					fail("PackedWords found a different number of words adjacent to " + word);
+				for(int i = 0; i < count; i++)
+					if(actual[i] != expected[i])
+						fail("PackedWords found " + words[actual[i]] + " instead of " + words[expected[i]]);
+			}
+		}
+	}
+	
+	/**
+	 * Tests that queries running while the graph is refreshed always get the answer of either
+	 * the old or the new dictionary, and that the refreshed graph replaces the old words
+	 */
+	@Test
+	public void test34_refresh_graph_under_query_load() throws Exception
+	{
+		graphProcessor.populateGraph("test_words.txt");
+		graphProcessor.shortestPathPrecomputation();
+		int before = graphProcessor.getShortestDistance("gate", "bin");
+		if(before != 4)
+			fail("The distance between gate and bin was " + before + " instead of 4");
+		
+		AtomicInteger wrong = new AtomicInteger();
+		AtomicInteger queries = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			while(!Thread.currentThread().isInterrupted()) {
+				// gate and bin are only in test_words.txt, rapine and hominy only in word_list.txt
+				int distance = graphProcessor.getShortestDistance("gate", "bin");
+				List<String> path = graphProcessor.getShortestPath("rapine", "hominy");
+				if((distance != 4 && distance != -1) || (path != null && !isPath(path, "RAPINE", "HOMINY", 8)))
+					wrong.incrementAndGet();
+				queries.incrementAndGet();
+			}
+		});
+		reader.start();
+		try {
+			for(int i = 0; i < 10; i++) {
+				if(graphProcessor.refreshGraph(i % 2 == 0 ? "word_list.txt" : "test_words.txt") == -1)
+					fail("refreshGraph() failed to read the dictionary");
+			}
+			if(graphProcessor.refreshGraph("RandomFilePath321") != -1)
+				fail("refreshGraph() failed to return -1 for an invalid file path");
+		} finally {
+			reader.interrupt();
+			reader.join();
+		}
+		if(queries.get() == 0)
+			fail("No queries ran during the refreshes");
+		if(wrong.get() != 0)
+			fail(wrong.get() + " queries saw a path of neither dictionary");
+		if(graphProcessor.getShortestDistance("gate", "bin") != before)
+			fail("The last refresh did not restore the distance between gate and bin");
+		if(graphProcessor.getShortestDistance("rapine", "hominy") != -1)
+			fail("refreshGraph() kept the words of the previous graph");
+	}
+	
+	/**
+	 * Tests that getShortestDistance() reads precomputed and mapped distances without building
+	 * a path, by checking that a run of queries allocates next to nothing
+	 */
+	@Test
+	public void test35_distance_queries_do_not_allocate() throws IOException
+	{
+		// the allocation counters are a HotSpot extension, so the test is skipped without them
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+		ThreadMXBean allocation = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled());
+		long thread = Thread.currentThread().getId();
+		
+		File tables = File.createTempFile("paths", ".table");
+		tables.deleteOnExit();
+		graphProcessor.populateGraph("word_list.txt");
+		graphProcessor.shortestPathPrecomputation();
+		graphProcessor.savePathTables(tables.getPath());
+		GraphProcessor mapped = new GraphProcessor();
+		mapped.loadPathTables(tables.getPath());
+		
+		String[] words = WordProcessor.getWordStream("word_list.txt").toArray(String[]::new);
+		for(GraphProcessor processor : new GraphProcessor[] { graphProcessor, mapped }) {
+			long sum = 0;
+			for(int warmup = 0; warmup < 3; warmup++)
+				for(String word : words)
+					sum += processor.getShortestDistance(words[0], word);
+			long before = allocation.getThreadAllocatedBytes(thread);
+			for(String word1 : words)
+				for(String word2 : words)
+					sum += processor.getShortestDistance(word1, word2);
+			long allocated = allocation.getThreadAllocatedBytes(thread) - before;
+			// a path per query would take well over 10 MB for the 194481 queries
+			if(allocated > 100000)
+				fail(words.length * words.length + " distance queries allocated " + allocated + " bytes (sum " + sum + ")");
+		}
+	}
+	
+	/**
+	 * Tests that the one-to-many and pair list queries give the same results as single queries
+	 * in precomputed, on-demand and point-to-point mode and with mapped path tables, including
+	 * equal and unknown words
+	 */
+	@Test
+	public void test36_batch_queries_match_single_queries() throws IOException
+	{
+		List<String> list = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+		list.add("notaword");
+		list.add(list.get(3).toLowerCase());
+		String[] words = list.toArray(new String[0]);
+		
+		File tables = File.createTempFile("paths", ".table");
+		tables.deleteOnExit();
+		GraphProcessor[] processors = { new GraphProcessor(), new GraphProcessor(), new GraphProcessor(), new GraphProcessor() };
+		processors[1].useOnDemandPaths(8, 0);
+		processors[2].usePointToPointPaths();
+		for(GraphProcessor processor : processors) {
+			if(processor == processors[3]) {
+				processors[0].savePathTables(tables.getPath());
+				processor.loadPathTables(tables.getPath());
+			} else {
+				processor.populateGraph("word_list.txt");
+				processor.shortestPathPrecomputation();
+			}
+			
+			for(int i = 0; i < words.length; i += 37) {
+				int[] distances = processor.getShortestDistances(words[i], words);
+				List<List<String>> paths = processor.getShortestPaths(words[i], words);
+				for(int j = 0; j < words.length; j++) {
+					int expected = processor.getShortestDistance(words[i], words[j]);
+					if(distances[j] != expected)
+						fail("getShortestDistances() gave " + distances[j] + " instead of " + expected + " for " + words[i] + " and " + words[j]);
+					if(expected == -1 ? paths.get(j) != null : !isPath(paths.get(j), words[i].toUpperCase(), words[j].toUpperCase(), expected))
+						fail("getShortestPaths() gave the wrong path " + paths.get(j) + " for " + words[i] + " and " + words[j]);
+				}
+			}
+			
+			String[] words1 = new String[5000];
+			String[] words2 = new String[5000];
+			java.util.Random random = new java.util.Random(36);
+			for(int i = 0; i < words1.length; i++) {
+				words1[i] = words[random.nextInt(20)];
+				words2[i] = words[random.nextInt(words.length)];
+			}
+			int[] distances = processor.getShortestDistances(words1, words2, 4);
+			for(int i = 0; i < words1.length; i++)
+				if(distances[i] != processor.getShortestDistance(words1[i], words2[i]))
+					fail("The pair list gave a different distance for " + words1[i] + " and " + words2[i]);
+		}
+		if(processors[0].getShortestDistances(words, new String[1], 4) != null)
+			fail("getShortestDistances() failed to return null for lists of different lengths");
+		if(processors[0].getShortestDistances(words, words, 0) != null)
+			fail("getShortestDistances() failed to return null for a parallelism of 0");
+	}
+	
+	/**
+	 * Tests that the component index matches the distances of a full precomputation as words
+	 * are added, and that queries between components never start a search
+	 */
+	@Test
+	public void test37_component_index() throws IOException
+	{
+		if(graphProcessor.componentOf("gate") != -1 || graphProcessor.getComponentCount() != 0)
+			fail("An empty graph has a component");
+		graphProcessor.populateGraph("test_words.txt");
+		// gate .. bin, hungry and hangry, hunger on its own
+		if(graphProcessor.getComponentCount() != 3)
+			fail("The graph of test_words.txt has " + graphProcessor.getComponentCount() + " components instead of 3");
+		if(graphProcessor.getComponentSize("GATE") != 12 || graphProcessor.getComponentSize("hangry") != 2 || graphProcessor.getComponentSize("hunger") != 1)
+			fail("The components of test_words.txt have the wrong sizes");
+		if(graphProcessor.componentOf("gate") != graphProcessor.componentOf("bin") || graphProcessor.componentOf("gate") == graphProcessor.componentOf("hungry"))
+			fail("componentOf() failed to tell which words are connected");
+		if(graphProcessor.componentOf("notaword") != -1 || graphProcessor.getComponentSize("notaword") != -1)
+			fail("An unknown word has a component");
+		
+		graphProcessor.populateGraph("word_list.txt");
+		graphProcessor.shortestPathPrecomputation();
+		String[] words = WordProcessor.getWordStream("word_list.txt").toArray(String[]::new);
+		for(String word1 : words)
+			for(String word2 : words)
+				if(!word1.equals(word2) && (graphProcessor.componentOf(word1) == graphProcessor.componentOf(word2)) != (graphProcessor.getShortestDistance(word1, word2) != -1))
+					fail("componentOf() does not match the distance between " + word1 + " and " + word2);
+		
+		GraphProcessor onDemand = new GraphProcessor();
+		onDemand.useOnDemandPaths(8, 0);
+		onDemand.populateGraph("test_words.txt");
+		if(onDemand.getShortestDistance("gate", "hungry") != -1 || onDemand.getShortestPath("hunger", "bin") != null)
+			fail("A query between components found a path");
+		if(onDemand.getShortestDistances("gate", new String[] { "hungry", "hunger" })[0] != -1)
+			fail("A batch query between components found a path");
+		if(onDemand.getPathCacheMisses() != 0)
+			fail("Queries between components searched " + onDemand.getPathCacheMisses() + " sources");
+		if(onDemand.getShortestDistance("gate", "bin") != 4 || onDemand.getPathCacheMisses() != 1)
+			fail("A query within a component was not searched");
+	}
+	
+	/**
+	 * Tests the bounded edit distance, and that the A* mode it guides gives the same distances
+	 * and valid paths as a full precomputation over word_list.txt
+	 */
+	@Test
+	public void test38_a_star_matches_precomputed() throws IOException
+	{
+		if(WordProcessor.editDistance("KITTEN", "SITTING", 5) != 3 || WordProcessor.editDistance("SITTING", "KITTEN", 5) != 3)
+			fail("editDistance() gave the wrong distance between KITTEN and SITTING");
+		if(WordProcessor.editDistance("KITTEN", "SITTING", 2) != 3 || WordProcessor.editDistance("A", "ABCDEF", 1) != 2)
+			fail("editDistance() failed to return limit + 1 past the limit");
+		if(WordProcessor.editDistance("GATE", "GATE", 0) != 0 || WordProcessor.editDistance("", "GATE", 10) != 4)
+			fail("editDistance() gave the wrong distance for equal or empty words");
+		EditDistance editDistance = new EditDistance();
+		editDistance.setTarget("SITTING");
+		if(editDistance.distance("KITTEN", 5) != 3 || editDistance.distance("KITTEN", 2) != 3 || editDistance.distance("SITTING", 0) != 0)
+			fail("EditDistance gave a different distance than editDistance()");
+		
+		GraphProcessor aStar = new GraphProcessor();
+		aStar.useAStarPaths();
+		graphProcessor.populateGraph("word_list.txt");
+		aStar.populateGraph("word_list.txt");
+		graphProcessor.shortestPathPrecomputation();
+		List<String> words = WordProcessor.getWordStream("word_list.txt").collect(Collectors.toList());
+		for(String word1 : words)
+			for(String word2 : words) {
+				int expected = graphProcessor.getShortestDistance(word1, word2);
+				if(expected != aStar.getShortestDistance(word1, word2))
+					fail("A* mode gave a different distance between " + word1 + " and " + word2);
+				List<String> path = aStar.getShortestPath(word1, word2);
+				if(expected == -1 ? path != null : !isPath(path, word1, word2, expected))
+					fail("A* mode gave the wrong path " + path + " between " + word1 + " and " + word2);
+			}
+		if(aStar.getShortestDistance("RAPINE", "notaword") != -1 || aStar.getShortestPath("notaword", "RAPINE") != null)
+			fail("A* mode found a path to an unknown word");
+	}
+	
+	/**
+	 * Tests that loadGraph() returns -1 for snapshots with impossible headers or contents, and
+	 * leaves the graph it was loading into unchanged
+	 */
+	@Test
+	public void test39_corrupt_snapshot_leaves_graph_unchanged() throws IOException
+	{
+		File snapshot = File.createTempFile("graph", ".snapshot");
+		snapshot.deleteOnExit();
+		graphProcessor.populateGraph("test_words.txt");
+		graphProcessor.saveGraph(snapshot.getPath());
+		byte[] valid = Files.readAllBytes(snapshot.toPath());
+		
+		List<byte[]> corrupt = new ArrayList<byte[]>();
+		// a vertex count near Integer.MAX_VALUE, and an edge count far past the end of the file
+		corrupt.add(ByteBuffer.allocate(20).putInt(GraphSnapshot.MAGIC).putInt(GraphSnapshot.VERSION).putInt(Integer.MAX_VALUE - 1).putInt(0).putInt(0).array());
+		corrupt.add(ByteBuffer.allocate(20).putInt(GraphSnapshot.MAGIC).putInt(GraphSnapshot.VERSION).putInt(0).putInt(0).putInt(1 << 30).array());
+		// cut short, and the last neighbor id pointing past the last word
+		corrupt.add(Arrays.copyOf(valid, valid.length - 4));
+		byte[] badNeighbor = valid.clone();
+		ByteBuffer.wrap(badNeighbor).putInt(valid.length - 4, 1000);
+		corrupt.add(badNeighbor);
+		
+		for(byte[] bytes : corrupt) {
+			Files.write(snapshot.toPath(), bytes);
+			if(graphProcessor.loadGraph(snapshot.getPath()) != -1)
+				fail("loadGraph() failed to return -1 for a corrupt snapshot");
+			if(graphProcessor.getComponentCount() != 3 || graphProcessor.getComponentSize("GATE") != 12 || graphProcessor.getComponentSize("hunger") != 1)
+				fail("A corrupt snapshot changed the graph");
+		}
+		Files.write(snapshot.toPath(), valid);
+		if(graphProcessor.loadGraph(snapshot.getPath()) != 15 || graphProcessor.getComponentCount() != 3)
+			fail("loadGraph() failed to read the snapshot back");
+	}
+	
+	/**
+	 * Tests that the component lookups answer while another thread holds the processor, as a
+	 * precomputation or a populate does for as long as it runs
+	 */
+	@Test
+	public void test40_component_lookups_do_not_wait_for_the_processor() throws InterruptedException
+	{
+		graphProcessor.populateGraph("test_words.txt");
+		int[] sizes = new int[3];
+		Thread reader = new Thread(() -> {
+			sizes[0] = graphProcessor.getComponentSize("GATE");
+			sizes[1] = graphProcessor.componentOf("hunger") == -1 ? -1 : 1;
+			sizes[2] = graphProcessor.getComponentCount();
+		});
+		synchronized(graphProcessor) {
+			reader.start();
+			reader.join(10000);
+			if(reader.isAlive())
+				fail("A component lookup waited for the thread holding the processor");
+		}
+		reader.join();
+		if(sizes[0] != 12 || sizes[1] != 1 || sizes[2] != 3)
+			fail("The component lookups gave the wrong answers: " + Arrays.toString(sizes));
+	}
+	
+	/**
+	 * Tests that a refresh publishes a cache of search trees with the limits set while it was
+	 * building, and that overlapping refreshes keep the graph of the last one
+	 */
+	@Test
+	public void test41_refresh_uses_current_settings_and_order() throws Exception
+	{
+		graphProcessor.useOnDemandPaths(8, 0);
+		Thread refresh = new Thread(() -> graphProcessor.refreshGraph("test_words.txt"));
+		synchronized(graphProcessor) {
+			refresh.start();
+			// the refresh has built the new graph and waits to publish it
+			waitUntilBlocked(refresh);
+			graphProcessor.useOnDemandPaths(1, 0);
+		}
+		refresh.join();
+		graphProcessor.getShortestDistance("GATE", "BIN");
+		graphProcessor.getShortestDistance("BIN", "GATE");
+		if(graphProcessor.getPathCacheEvictions() != 1)
+			fail("The refreshed cache kept the limits set before the refresh");
+		
+		Thread first = new Thread(() -> graphProcessor.refreshGraph("word_list.txt"));
+		Thread second = new Thread(() -> graphProcessor.refreshGraph("test_words.txt"));
+		synchronized(graphProcessor) {
+			first.start();
+			waitUntilBlocked(first);
+			second.start();
+			waitUntilBlocked(second);
+		}
+		first.join();
+		second.join();
+		if(graphProcessor.getComponentCount() != 3)
+			fail("An earlier refresh replaced the graph of a later one");
+	}
+	
+	/**
+	 * Helper that waits until a thread is blocked on a monitor
+	 */
+	private static void waitUntilBlocked(Thread thread) throws InterruptedException
+	{
+		while(thread.getState() != Thread.State.BLOCKED) {
+			if(!thread.isAlive())
+				fail(thread + " ended instead of waiting for the processor");
+			Thread.sleep(1);
+		}
+	}
+	
+	/**
+	 * Tests the breadth first search of shortestPathPrecomputation() against ladders of
+	 * test_words.txt worked out by hand, in both directions, including words with no path
+	 * between them
+	 */
+	@Test
+	public void test42_precomputed_paths_match_known_ladders()
+	{
+		graphProcessor.populateGraph("test_words.txt");
+		graphProcessor.shortestPathPrecomputation();
+		// word1, word2 and the length of the shortest ladder between them
+		Object[][] ladders = {
+			{ "BAT", "BATE", 1 },
+			{ "HUNGRY", "HANGRY", 1 },
+			{ "GATE", "PAT", 3 },
+			{ "RATE", "BAN", 3 },
+			{ "RAN", "PLATE", 4 },
+			{ "PLITE", "BIN", 6 },
+			{ "HUNGER", "HUNGRY", -1 },
+			{ "GATE", "HANGRY", -1 },
+		};
+		for(Object[] ladder : ladders) {
+			for(int direction = 0; direction < 2; direction++) {
+				String word1 = (String) ladder[direction];
+				String word2 = (String) ladder[1 - direction];
+				int expected = (Integer) ladder[2];
+				if(graphProcessor.getShortestDistance(word1, word2) != expected)
+					fail("The distance between " + word1 + " and " + word2 + " is not " + expected);
+				List<String> path = graphProcessor.getShortestPath(word1, word2);
+				if(expected == -1 ? path != null : !isPath(path, word1, word2, expected))
+					fail("The path " + path + " between " + word1 + " and " + word2 + " is not a ladder of " + expected);
+			}
+		}
+		// the only shortest ladder between them
+		if(!Arrays.asList("PLITE", "PLATE", "PLAT", "PAT", "RAT", "RAN").equals(graphProcessor.getShortestPath("plite", "ran")))
+			fail("getShortestPath() gave the wrong path between PLITE and RAN");
+	}
+	
+	/**
+	 * Helper that names an undirected edge the same way whichever end comes first
+	 */
+	private static String edge(String word1, String word2)
+	{
+		if(word1.compareTo(word2) < 0)
+			return word1 + " " + word2;
+		return word2 + " " + word1;
+	}
 }
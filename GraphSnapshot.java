@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves the words and edges of a graph to a binary file and loads them back, so a restart does
+ * not have to read the dictionary text and find the edges again.
+ *
+ * File layout, all ints big-endian:
+ * 	1. header: MAGIC, VERSION, vertex count V, word byte count B, edge count E
+ * 	2. word offsets: V + 1 ints, word i is bytes [offset[i], offset[i + 1]) of the word bytes
+ * 	3. word bytes: B bytes of UTF-8
+ * 	4. edge offsets: V + 1 ints, the neighbors of word i are entries [offset[i], offset[i + 1])
+ * 	   of the neighbor ids
+ * 	5. neighbor ids: E ints; each edge is stored once, with the word with the smaller id
+ *
+ * Every section is read and written in large blocks through a FileChannel, see
+ * {@link BlockFiles}.
+ */
+class GraphSnapshot {
+
+    /**
+     * First int of every snapshot file ("P4GR")
+     */
+    static final int MAGIC = 0x50344752;
+
+    /**
+     * Version of the layout written by this class
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Writes the vertices and edges of graph to a file, replacing it if it exists. The file is
+     * written under a temporary name in the same directory and then renamed over the old one.
+     *
+     * @param graph the graph to save
+     * @param path the file to write
+     * @return int the number of vertices written
+     * @throws IOException exception resulting from writing the file
+     */
+    static int save(GraphADT<String> graph, Path path) throws IOException {
+        IntGraph copy = new IntGraph(graph);
+        int size = copy.size();
+
+        byte[][] words = new byte[size][];
+        int[] wordOffsets = new int[size + 1];
+        int[] edgeOffsets = new int[size + 1];
+        long wordBytes = 0;
+        long edges = 0;
+        for (int id = 0; id < size; id++) {
+            words[id] = copy.word(id).getBytes(StandardCharsets.UTF_8);
+            wordBytes += words[id].length;
+            for (int neighbor : copy.neighbors(id))
+                if (id < neighbor)
+                    edges++;
+            if (wordBytes > Integer.MAX_VALUE || edges > Integer.MAX_VALUE)
+                throw new IOException("graph too large for snapshot version " + VERSION);
+            wordOffsets[id + 1] = (int) wordBytes;
+            edgeOffsets[id + 1] = (int) edges;
+        }
+
+        int totalWordBytes = (int) wordBytes;
+        int totalEdges = (int) edges;
+        // written beside the file and moved over it, so a crash never leaves half a snapshot
+        BlockFiles.writeAtomically(path, (channel, buffer) -> {
+            BlockFiles.putInt(channel, buffer, MAGIC);
+            BlockFiles.putInt(channel, buffer, VERSION);
+            BlockFiles.putInt(channel, buffer, size);
+            BlockFiles.putInt(channel, buffer, totalWordBytes);
+            BlockFiles.putInt(channel, buffer, totalEdges);
+            for (int offset : wordOffsets)
+                BlockFiles.putInt(channel, buffer, offset);
+            for (byte[] word : words)
+                BlockFiles.put(channel, buffer, word);
+            for (int offset : edgeOffsets)
+                BlockFiles.putInt(channel, buffer, offset);
+            for (int id = 0; id < size; id++)
+                for (int neighbor : copy.neighbors(id))
+                    if (id < neighbor)
+                        BlockFiles.putInt(channel, buffer, neighbor);
+        });
+        return size;
+    }
+
+    /**
+     * Adds the vertices and edges stored in a snapshot file to graph. The whole file is read and
+     * checked first, so graph is left unchanged if it is not a valid snapshot.
+     *
+     * @param path the file to read
+     * @param graph the graph to add to
+     * @return int the number of vertices read
+     * @throws IOException exception resulting from reading the file, or if it is not a snapshot
+     *         of a version this class can read
+     */
+    static int load(Path path, GraphADT<String> graph) throws IOException {
+        String[] words;
+        int[] edgeOffsets;
+        int[] neighbors;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < 20)
+                throw new IOException(path + " is not a graph snapshot");
+            IntBuffer header = readInts(channel, 5);
+            if (header.get(0) != MAGIC)
+                throw new IOException(path + " is not a graph snapshot");
+            if (header.get(1) != VERSION)
+                throw new IOException(path + " has snapshot version " + header.get(1)
+                                + ", expected " + VERSION);
+            int size = header.get(2);
+            int wordBytes = header.get(3);
+            int edges = header.get(4);
+            // the sections must add up to the file, which also bounds every array read below
+            if (size < 0 || size >= Integer.MAX_VALUE / 4 || wordBytes < 0 || edges < 0
+                            || channel.size() != 20 + 8 * (size + 1L) + wordBytes + 4L * edges)
+                throw new IOException(path + " has a corrupt header");
+
+            int[] wordOffsets = readOffsets(channel, size, wordBytes, path);
+            ByteBuffer bytes = BlockFiles.readFully(channel, ByteBuffer.allocate(wordBytes));
+            words = new String[size];
+            for (int id = 0; id < size; id++)
+                words[id] = new String(bytes.array(), wordOffsets[id],
+                                wordOffsets[id + 1] - wordOffsets[id], StandardCharsets.UTF_8);
+
+            edgeOffsets = readOffsets(channel, size, edges, path);
+            // the neighbor ids are read a block at a time, in order of their smaller word
+            neighbors = new int[edges];
+            int id = 0;
+            for (int read = 0; read < edges; ) {
+                int count = Math.min(BlockFiles.BLOCK_SIZE / 4, edges - read);
+                readInts(channel, count).get(neighbors, read, count);
+                for (int end = read + count; read < end; read++) {
+                    while (edgeOffsets[id + 1] <= read)
+                        id++;
+                    if (neighbors[read] <= id || neighbors[read] >= size)
+                        throw new IOException(path + " is corrupt");
+                }
+            }
+        }
+
+        for (String word : words)
+            graph.addVertex(word);
+        for (int id = 0; id < words.length; id++)
+            for (int i = edgeOffsets[id]; i < edgeOffsets[id + 1]; i++)
+                graph.addEdge(words[id], words[neighbors[i]]);
+        return words.length;
+    }
+
+    /**
+     * Reads size + 1 offsets into a section of total entries
+     *
+     * @throws IOException if they do not rise from 0 to total
+     */
+    private static int[] readOffsets(FileChannel channel, int size, int total, Path path)
+                    throws IOException {
+        int[] offsets = new int[size + 1];
+        readInts(channel, size + 1).get(offsets);
+        if (offsets[0] != 0 || offsets[size] != total)
+            throw new IOException(path + " is corrupt");
+        for (int i = 0; i < size; i++)
+            if (offsets[i] > offsets[i + 1])
+                throw new IOException(path + " is corrupt");
+        return offsets;
+    }
+
+    /**
+     * Reads count ints from the channel's current position
+     */
+    private static IntBuffer readInts(FileChannel channel, int count) throws IOException {
+        return BlockFiles.readFully(channel, ByteBuffer.allocate(4 * count)).asIntBuffer();
+    }
+}
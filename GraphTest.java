@@ -1,10 +1,13 @@
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.After;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -49,7 +52,15 @@ public class GraphTest {
 
 	@Before
 	public void setUp() throws Exception {
-		this.graph = new Graph<>();
+		this.graph = createGraph();
+	}
+
+	/**
+	 * Creates the empty graph each test runs on, overridden to run these tests on other
+	 * implementations of GraphADT
+	 */
+	protected GraphADT<String> createGraph() {
+		return new Graph<>();
 	}
 
 	@After
@@ -333,4 +344,126 @@ public class GraphTest {
 		assertEquals("num of vertices in the graph", numOfVertices-2, verticesCount);
 	}
 
+	@Test
+	public final void removedVertexCanBeAddedAgainWithoutItsEdges() {
+		// setup the graph by adding a few vertices and edges
+		for (String itrVertex : vertices)
+			this.graph.addVertex(itrVertex);
+		this.graph.addEdge(vertices.get(0), vertices.get(1));
+		this.graph.removeVertex(vertices.get(0));
+		
+		assertEquals("return value if removed vertex is added again", 
+				vertices.get(0), this.graph.addVertex(vertices.get(0)));
+		assertEquals("return value if removed vertex is added a second time", 
+				null, this.graph.addVertex(vertices.get(0)));
+		assertEquals("return value if re-added vertex is checked against its old neighbor", 
+				false, this.graph.isAdjacent(vertices.get(0), vertices.get(1)));
+		assertEquals("return value if edge added to re-added vertex", 
+				true, this.graph.addEdge(vertices.get(1), vertices.get(0)));
+		assertEquals("return value if re-added vertex is connected again", 
+				true, this.graph.isAdjacent(vertices.get(0), vertices.get(1)));
+		
+		int verticesCount = 0;
+		for (String itrVertex : this.graph.getAllVertices())
+			verticesCount++;
+		assertEquals("num of vertices in the graph", numOfVertices, verticesCount);
+	}
+
+	@Test
+	public final void neighborsAreReadOnly() {
+		for (String itrVertex : vertices)
+			graph.addVertex(itrVertex);
+		graph.addEdge(vertices.get(0), vertices.get(1));
+		
+		boolean removed = true;
+		try {
+			Iterator<String> neighbors = graph.getNeighbors(vertices.get(0)).iterator();
+			neighbors.next();
+			neighbors.remove();
+		} catch (UnsupportedOperationException e) {
+			removed = false;
+		}
+		assertEquals("return value if the neighbors are modified", false, removed);
+		assertEquals("return value if removed edge checked", 
+				true, graph.isAdjacent(vertices.get(0), vertices.get(1)));
+	}
+
+	@Test
+	public final void neighborViewFollowsEdges() {
+		// only Graph returns a view, other implementations return a copy
+		Assume.assumeTrue(graph instanceof Graph);
+		for (String itrVertex : vertices)
+			graph.addVertex(itrVertex);
+		Iterable<String> neighbors = graph.getNeighbors(vertices.get(0));
+		graph.addEdge(vertices.get(0), vertices.get(1));
+		
+		List<String> seen = new ArrayList<>();
+		for (String itrNeighbor : neighbors)
+			seen.add(itrNeighbor);
+		assertEquals("neighbors seen through a view taken before the edge was added", 
+				vertices.subList(1, 2), seen);
+		
+		graph.addEdge(vertices.get(0), vertices.get(2));
+		boolean failed = false;
+		try {
+			for (String itrNeighbor : neighbors)
+				graph.addEdge(vertices.get(0), vertices.get(3));
+		} catch (ConcurrentModificationException e) {
+			failed = true;
+		}
+		assertEquals("return value if edges are added while the view is iterated", true, failed);
+		
+		graph.removeVertex(vertices.get(0));
+		assertEquals("neighbors seen through a view of a removed vertex", 
+				0, count(neighbors));
+		assertEquals("return value if an edge of the removed vertex is checked", 
+				false, graph.isAdjacent(vertices.get(1), vertices.get(0)));
+	}
+
+	@Test
+	public final void forEachNeighborAndDegreeMatchGetNeighbors() {
+		NeighborAccess<String> access = access();
+		for (String itrVertex : vertices)
+			graph.addVertex(itrVertex);
+		for (int i = 1; i < 4; i++)
+			graph.addEdge(vertices.get(0), vertices.get(i));
+		
+		List<String> visited = new ArrayList<>();
+		assertEquals("return value of forEachNeighbor for an existing vertex", 
+				true, access.forEachNeighbor(vertices.get(0), visited::add));
+		List<String> neighbors = new ArrayList<>();
+		for (String itrNeighbor : graph.getNeighbors(vertices.get(0)))
+			neighbors.add(itrNeighbor);
+		assertEquals("neighbors visited by forEachNeighbor", neighbors, visited);
+		assertEquals("degree of a vertex with 3 edges", 3, access.degree(vertices.get(0)));
+		assertEquals("degree of a vertex with 1 edge", 1, access.degree(vertices.get(1)));
+		assertEquals("degree of a vertex with no edges", 0, access.degree(vertices.get(5)));
+		assertEquals("degree of a vertex not in the graph", -1, access.degree("notAVertex"));
+		assertEquals("degree of null", -1, access.degree(null));
+		assertEquals("return value of forEachNeighbor for a missing vertex", 
+				false, access.forEachNeighbor("notAVertex", visited::add));
+		
+		graph.removeVertex(vertices.get(0));
+		assertEquals("degree of a former neighbor of a removed vertex", 0, access.degree(vertices.get(1)));
+	}
+
+	/**
+	 * Gives forEachNeighbor and degree of the graph under test, which every implementation
+	 * tested here offers
+	 */
+	@SuppressWarnings("unchecked")
+	private NeighborAccess<String> access() {
+		return (NeighborAccess<String>) graph;
+	}
+
+	/**
+	 * Counts the items of an Iterable
+	 */
+	protected static int count(Iterable<String> items) {
+		int count = 0;
+		for (String item : items)
+			count++;
+		return count;
+	}
+
 }
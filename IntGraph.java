@@ -0,0 +1,213 @@
+import java.util.Arrays;
+
+/**
+ * A copy of a word graph where every vertex has a dense int id and the edges are stored as
+ * int adjacency arrays, so searches never hash or compare Strings.
+ *
+ * The ids come from a {@link WordDictionary}, which can be shared by every copy of the same
+ * graph: a later copy then keeps the ids of the earlier words and numbers the new words after
+ * them. The copy is taken when the IntGraph is created and does not change afterwards, so it
+ * can be searched from several threads at once.
+ *
+ * Every vertex is also labelled with its connected component, copied from a
+ * {@link ComponentIndex} of the graph or found from the copied edges, so a search can tell two
+ * words are unreachable from each other before it starts.
+ */
+class IntGraph {
+
+    // gives the ids; the copy holds the words with ids below size
+    private WordDictionary dictionary;
+    private int size;
+    // adjacency[id] holds the ids of the neighbors of id
+    private int[][] adjacency;
+    // edges not in the copy this one extends, as pairs of ids
+    private int[] newEdges;
+    // component[id] is equal for two ids exactly when they are connected
+    private int[] component;
+
+    /**
+     * Copies the current vertices and edges of graph, numbering the words afresh. The graph
+     * must not change while it is being copied.
+     *
+     * @param graph the graph to copy
+     */
+    IntGraph(GraphADT<String> graph) {
+        this(graph, new WordDictionary(), null, null);
+    }
+
+    /**
+     * Copies the current vertices and edges of graph, with the ids of dictionary. Vertices the
+     * dictionary does not have yet are added to it.
+     *
+     * @param graph the graph to copy
+     * @param dictionary the ids of the words, only holding words of graph
+     * @param components the components of graph by the ids of dictionary, or null to find them
+     *        from the copied edges
+     */
+    IntGraph(GraphADT<String> graph, WordDictionary dictionary, ComponentIndex components) {
+        this(graph, dictionary, null, components);
+    }
+
+    /**
+     * Copies the current vertices and edges of graph, which must contain every vertex and edge
+     * of previous. The words of previous keep their ids, and the edges graph has gained since
+     * are recorded, see {@link #getNewEdges()}.
+     *
+     * @param graph the graph to copy
+     * @param previous an earlier copy of the same graph
+     * @param components the components of graph by the ids of previous, or null to find them
+     *        from the copied edges
+     */
+    IntGraph(GraphADT<String> graph, IntGraph previous, ComponentIndex components) {
+        this(graph, previous.dictionary, previous, components);
+    }
+
+    private IntGraph(GraphADT<String> graph, WordDictionary dictionary, IntGraph previous,
+                    ComponentIndex components) {
+        this.dictionary = dictionary;
+        for (String vertex : graph.getAllVertices())
+            dictionary.intern(vertex);
+        this.size = dictionary.size();
+
+        this.adjacency = new int[size][];
+        int[] added = new int[16];
+        int addedCount = 0;
+        for (int id = 0; id < size; id++) {
+            adjacency[id] = neighbors(graph, dictionary.word(id));
+            int count = adjacency[id].length;
+
+            // edges are only ever added, so a vertex with as many neighbors as before has no new ones
+            int[] before = previous == null || id >= previous.size() ? new int[0] : previous.adjacency[id];
+            if (before.length == count)
+                continue;
+            int[] old = before.clone();
+            Arrays.sort(old);
+            for (int neighbor : adjacency[id]) {
+                if (id < neighbor && Arrays.binarySearch(old, neighbor) < 0) {
+                    if (addedCount + 2 > added.length)
+                        added = Arrays.copyOf(added, 2 * added.length);
+                    added[addedCount++] = id;
+                    added[addedCount++] = neighbor;
+                }
+            }
+        }
+        this.newEdges = Arrays.copyOf(added, addedCount);
+
+        // an index missing some of the copied words cannot label them
+        if (components == null || components.size() < size) {
+            components = new ComponentIndex();
+            components.add(size - 1);
+            for (int id = 0; id < size; id++)
+                for (int neighbor : adjacency[id])
+                    components.union(id, neighbor);
+        }
+        this.component = components.labels(size);
+    }
+
+    /**
+     * Gets the ids of the neighbors of a word. A graph with {@link NeighborAccess} is read
+     * straight into an array of the word's degree, without a view, iterator or scratch copy.
+     *
+     * @param graph the graph being copied
+     * @param word a vertex of graph
+     * @return int[] the ids of its neighbors
+     */
+    private int[] neighbors(GraphADT<String> graph, String word) {
+        if (graph instanceof NeighborAccess) {
+            @SuppressWarnings("unchecked")
+            NeighborAccess<String> access = (NeighborAccess<String>) graph;
+            int[] row = new int[Math.max(0, access.degree(word))];
+            // the graph must not change during the copy, but an edge added anyway is dropped
+            int[] count = new int[1];
+            access.forEachNeighbor(word, neighbor -> {
+                if (count[0] < row.length)
+                    row[count[0]++] = dictionary.id(neighbor);
+            });
+            return count[0] == row.length ? row : Arrays.copyOf(row, count[0]);
+        }
+        int[] row = new int[16];
+        int count = 0;
+        Iterable<String> neighbors = graph.getNeighbors(word);
+        if (neighbors != null) {
+            for (String neighbor : neighbors) {
+                if (count == row.length)
+                    row = Arrays.copyOf(row, 2 * count);
+                row[count++] = dictionary.id(neighbor);
+            }
+        }
+        return Arrays.copyOf(row, count);
+    }
+
+    /**
+     * Returns the number of vertices
+     *
+     * @return int number of vertices
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the id of a word
+     *
+     * @param word the word
+     * @return int the id of word, or -1 if word is not a vertex
+     */
+    int id(String word) {
+        int id = dictionary.id(word);
+        return id < size ? id : -1;
+    }
+
+    /**
+     * Gets the word with the given id
+     *
+     * @param id the id
+     * @return String the word
+     */
+    String word(int id) {
+        return dictionary.word(id);
+    }
+
+    /**
+     * Gets the edges this copy has and the copy it extends did not, as pairs of ids: edge i
+     * joins getNewEdges()[2 * i] and getNewEdges()[2 * i + 1]. Without an earlier copy every
+     * edge is new.
+     *
+     * @return int[] the new edges
+     */
+    int[] getNewEdges() {
+        return newEdges;
+    }
+
+    /**
+     * Gets the component label of a vertex. Two vertices are connected exactly when their labels
+     * are equal.
+     *
+     * @param id the vertex id
+     * @return int the label of its component
+     */
+    int component(int id) {
+        return component[id];
+    }
+
+    /**
+     * Checks if two vertices are in the same component, so that there is a path between them
+     *
+     * @param id1 first vertex id
+     * @param id2 second vertex id
+     * @return boolean true if they are connected
+     */
+    boolean connected(int id1, int id2) {
+        return component[id1] == component[id2];
+    }
+
+    /**
+     * Gets the ids of the neighbors of a vertex. The array is shared and must not be modified.
+     *
+     * @param id the vertex id
+     * @return int[] the neighbor ids
+     */
+    int[] neighbors(int id) {
+        return adjacency[id];
+    }
+}
@@ -0,0 +1,476 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All-pairs shortest path data read straight from a memory-mapped file. Nothing but the
+ * mappings is kept on the heap, so opening a file is quick however many words it holds, and
+ * every process mapping the same file shares one copy in the page cache.
+ *
+ * The words are renumbered in the order of their UTF-8 bytes, so a word's id is found by a
+ * binary search of the mapped word table. Like {@link PathTable}, the paths are partitioned by
+ * connected component: a word's partition and local number lead to one dense block of distance
+ * and predecessor rows per component, so the file holds the sum of the squared component sizes
+ * instead of V^2 entries.
+ *
+ * File layout, all numbers big-endian:
+ * 	1. header: MAGIC, VERSION, vertex count V, word byte count B, partition count K
+ * 	2. word offsets: V + 1 ints, word i is bytes [offset[i], offset[i + 1]) of the word bytes
+ * 	3. word bytes: B bytes of UTF-8, padded with zeros to a multiple of 8
+ * 	4. partitions: V ints, the partition of each word
+ * 	5. local numbers: V ints, the number of each word within its partition
+ * 	6. partition directory: K longs, the file position of each partition's block, then K ints,
+ * 	   the number of words n of each partition, padded with zeros to a multiple of 8
+ * 	7. partition blocks, largest partition first, each holding:
+ * 	   a. members: n ints, the id of the word with each local number, padded to a multiple of 8
+ * 	   b. distances: n rows of n shorts by local number, SearchTree.NONE if the target is
+ * 	      unreachable, padded to a multiple of 8
+ * 	   c. predecessors: n rows of n ints, the local number of each target's predecessor, and
+ * 	      SearchTree.NONE for the source
+ *
+ * A mapping can hold at most 2GB, so everything after the word bytes is mapped as slices of
+ * SLICE_SIZE bytes. Every number lies at a multiple of its own width, so none spans two slices.
+ */
+class MappedPathTable implements ShortestPaths {
+
+    /**
+     * First int of every path table file ("P4PT")
+     */
+    static final int MAGIC = 0x50345054;
+
+    /**
+     * Version of the layout written by this class
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Number of bytes of the header
+     */
+    private static final int HEADER = 20;
+
+    /**
+     * Number of bytes of each mapped slice of the path data, a power of two
+     */
+    private static final int SLICE_SIZE = 1 << 30;
+
+    // number of vertices
+    private int size;
+    // number of partitions
+    private int partitionCount;
+    // word offsets and word bytes
+    private ByteBuffer words;
+    // position of the first word byte in words
+    private int wordStart;
+    // the file from the partition of each word on, in slices of SLICE_SIZE bytes
+    private ByteBuffer[] data;
+    // file position of the first byte of data
+    private long dataStart;
+
+    /**
+     * Maps an opened path table file
+     */
+    private MappedPathTable(FileChannel channel, Path path) throws IOException {
+        if (channel.size() < HEADER)
+            throw new IOException(path + " is not a path table");
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+        if (header.getInt(0) != MAGIC)
+            throw new IOException(path + " is not a path table");
+        if (header.getInt(4) != VERSION)
+            throw new IOException(path + " has path table version " + header.getInt(4)
+                            + ", expected " + VERSION);
+        size = header.getInt(8);
+        int wordBytes = header.getInt(12);
+        partitionCount = header.getInt(16);
+        if (size < 0 || wordBytes < 0 || partitionCount < 0 || partitionCount > size
+                        || (long) HEADER + 4L * (size + 1) + wordBytes > Integer.MAX_VALUE)
+            throw new IOException(path + " has a corrupt header");
+
+        wordStart = HEADER + 4 * (size + 1);
+        dataStart = SearchTree.align((long) wordStart + wordBytes);
+        long blocksStart = dataStart + 8L * size + SearchTree.align(12L * partitionCount);
+        if (channel.size() < blocksStart)
+            throw new IOException(path + " is corrupt");
+        words = channel.map(FileChannel.MapMode.READ_ONLY, 0, wordStart + wordBytes);
+        data = new ByteBuffer[(int) ((channel.size() - dataStart + SLICE_SIZE - 1) / SLICE_SIZE)];
+        for (int i = 0; i < data.length; i++) {
+            long start = dataStart + (long) i * SLICE_SIZE;
+            data[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                            Math.min(SLICE_SIZE, channel.size() - start));
+        }
+
+        // the blocks must follow each other in the directory's order and end with the file
+        long position = blocksStart;
+        for (int c = 0; c < partitionCount; c++) {
+            long count = partitionSize(c);
+            if (block(c) != position || count < 0)
+                throw new IOException(path + " is corrupt");
+            position += blockBytes(count);
+        }
+        if (position != channel.size())
+            throw new IOException(path + " is corrupt");
+    }
+
+    /**
+     * Opens a path table file written by {@link #write(PathTable, Path)}. The mappings stay
+     * valid after the file is closed.
+     *
+     * @param path the file to map
+     * @return MappedPathTable the mapped table
+     * @throws IOException exception resulting from mapping the file, or if it is not a path
+     *         table of a version this class can read
+     */
+    static MappedPathTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedPathTable(channel, path);
+        }
+    }
+
+    /**
+     * Writes the partitions of a fully computed table to a file, replacing it if it exists. The
+     * file is written under a temporary name in the same directory and then renamed over the
+     * old one, so tables already mapped from the old file stay valid.
+     *
+     * @param table a fully computed table
+     * @param path the file to write
+     * @return int the number of vertices written
+     * @throws IOException exception resulting from writing the file
+     */
+    static int write(PathTable table, Path path) throws IOException {
+        IntGraph graph = table.getGraph();
+        int size = graph.size();
+        int partitions = table.partitionCount();
+
+        // sort the words by their bytes; order[newId] is the table's id, and newId[id] the inverse
+        byte[][] bytes = new byte[size][];
+        Integer[] sorted = new Integer[size];
+        long wordBytes = 0;
+        for (int id = 0; id < size; id++) {
+            bytes[id] = graph.word(id).getBytes(StandardCharsets.UTF_8);
+            sorted[id] = id;
+            wordBytes += bytes[id].length;
+        }
+        if (wordBytes > Integer.MAX_VALUE - HEADER - 4L * (size + 1))
+            throw new IOException("graph too large for path table version " + VERSION);
+        Arrays.sort(sorted, (a, b) -> compare(bytes[a], bytes[b]));
+        int[] order = new int[size];
+        int[] newId = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = sorted[i];
+            newId[order[i]] = i;
+        }
+
+        // the partition and local number of each word, and where each partition's block starts
+        int[] component = new int[size];
+        int[] local = new int[size];
+        long[] blocks = new long[partitions];
+        long position = SearchTree.align(HEADER + 4L * (size + 1) + wordBytes) + 8L * size
+                        + SearchTree.align(12L * partitions);
+        for (int c = 0; c < partitions; c++) {
+            int[] members = table.members(c);
+            for (int i = 0; i < members.length; i++) {
+                component[newId[members[i]]] = c;
+                local[newId[members[i]]] = i;
+            }
+            blocks[c] = position;
+            position += blockBytes(members.length);
+        }
+
+        int totalWordBytes = (int) wordBytes;
+        // written beside the file and renamed over it: processes that mapped the old file keep
+        // reading it, and a crash never leaves half a table
+        BlockFiles.writeAtomically(path, (channel, buffer) -> {
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(totalWordBytes)
+                            .putInt(partitions);
+            int offset = 0;
+            BlockFiles.putInt(channel, buffer, offset);
+            for (int i = 0; i < size; i++) {
+                offset += bytes[order[i]].length;
+                BlockFiles.putInt(channel, buffer, offset);
+            }
+            for (int i = 0; i < size; i++)
+                BlockFiles.put(channel, buffer, bytes[order[i]]);
+            pad(channel, buffer, HEADER + 4L * (size + 1) + totalWordBytes);
+
+            for (int c : component)
+                BlockFiles.putInt(channel, buffer, c);
+            for (int i : local)
+                BlockFiles.putInt(channel, buffer, i);
+            for (long block : blocks)
+                BlockFiles.ensure(channel, buffer, 8).putLong(block);
+            for (int c = 0; c < partitions; c++)
+                BlockFiles.putInt(channel, buffer, table.members(c).length);
+            pad(channel, buffer, 4L * partitions);
+
+            for (int c = 0; c < partitions; c++) {
+                int[] members = table.members(c);
+                for (int member : members)
+                    BlockFiles.putInt(channel, buffer, newId[member]);
+                pad(channel, buffer, 4L * members.length);
+                for (int source = 0; source < members.length; source++)
+                    for (short distance : table.distanceRow(c, source))
+                        BlockFiles.ensure(channel, buffer, 2).putShort(distance);
+                pad(channel, buffer, 2L * members.length * members.length);
+                for (int source = 0; source < members.length; source++)
+                    for (int pred : table.predecessorRow(c, source))
+                        BlockFiles.putInt(channel, buffer, pred);
+            }
+        });
+        return size;
+    }
+
+    /**
+     * Writes the zeros that pad a section of the given length to a multiple of 8 bytes
+     */
+    private static void pad(FileChannel channel, ByteBuffer buffer, long length)
+                    throws IOException {
+        for (; length % 8 != 0; length++)
+            BlockFiles.ensure(channel, buffer, 1).put((byte) 0);
+    }
+
+    /**
+     * Returns the number of bytes of the block of a partition of count words
+     */
+    private static long blockBytes(long count) {
+        return SearchTree.align(4 * count) + SearchTree.align(2 * count * count)
+                        + 4 * count * count;
+    }
+
+    /**
+     * Returns the number of vertices in the table
+     *
+     * @return int number of vertices
+     */
+    int size() {
+        return size;
+    }
+
+    @Override
+    public int getDistance(String word1, String word2) {
+        int source = id(word1);
+        int target = id(word2);
+        if (source < 0 || target < 0)
+            return SearchTree.NONE;
+        return distance(source, target);
+    }
+
+    @Override
+    public List<String> getPath(String word1, String word2) {
+        return path(id(word1), id(word2));
+    }
+
+    @Override
+    public void getDistances(String source, String[] targets, int[] results) {
+        int id = id(source);
+        for (int i = 0; i < targets.length; i++) {
+            int target = id < 0 ? SearchTree.NONE : id(targets[i]);
+            results[i] = target < 0 ? SearchTree.NONE : distance(id, target);
+        }
+    }
+
+    @Override
+    public List<List<String>> getPaths(String source, String[] targets) {
+        List<List<String>> paths = new ArrayList<List<String>>(targets.length);
+        int id = id(source);
+        for (String target : targets)
+            paths.add(id < 0 ? null : path(id, id(target)));
+        return paths;
+    }
+
+    /**
+     * Gets the words on the shortest path between two ids by walking the mapped predecessors of
+     * their partition
+     *
+     * @return List<String> the path, or null if either id is -1 or target is unreachable
+     */
+    private List<String> path(int source, int target) {
+        if (source < 0 || target < 0 || distance(source, target) == SearchTree.NONE)
+            return null;
+        int c = component(source);
+        long block = block(c);
+        long count = partitionSize(c);
+        long row = predecessors(block, count) + 4 * (local(source) * count);
+        ArrayList<String> path = new ArrayList<String>();
+        for (int node = local(target); node != SearchTree.NONE; node = getInt(row + 4L * node))
+            path.add(word(getInt(block + 4L * node)));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the number of bytes mapped for the path data: the partition and local number of
+     * every word, the partition directory and the partition blocks. They are held off-heap, in
+     * pages the operating system loads and shares as they are read.
+     *
+     * @return long number of bytes
+     */
+    @Override
+    public long getFootprint() {
+        long bytes = 0;
+        for (ByteBuffer slice : data)
+            bytes += slice.capacity();
+        return bytes;
+    }
+
+    /**
+     * Reads the distance from source to target in their partition
+     */
+    private int distance(int source, int target) {
+        int c = component(source);
+        if (c != component(target))
+            return SearchTree.NONE;
+        long count = partitionSize(c);
+        return getShort(distances(block(c), count) + 2 * (local(source) * count + local(target)));
+    }
+
+    /**
+     * Reads the partition of a word
+     */
+    private int component(int id) {
+        return getInt(dataStart + 4L * id);
+    }
+
+    /**
+     * Reads the number of a word within its partition
+     */
+    private int local(int id) {
+        return getInt(dataStart + 4L * (size + id));
+    }
+
+    /**
+     * Reads the file position of the block of partition c, which starts with its members
+     */
+    private long block(int c) {
+        return getLong(dataStart + 8L * size + 8L * c);
+    }
+
+    /**
+     * Reads the number of words of partition c
+     */
+    private int partitionSize(int c) {
+        return getInt(dataStart + 8L * size + 8L * partitionCount + 4L * c);
+    }
+
+    /**
+     * Returns the file position of the distance rows of a block of count words
+     */
+    private static long distances(long block, long count) {
+        return block + SearchTree.align(4 * count);
+    }
+
+    /**
+     * Returns the file position of the predecessor rows of a block of count words
+     */
+    private static long predecessors(long block, long count) {
+        return distances(block, count) + SearchTree.align(2 * count * count);
+    }
+
+    /**
+     * Reads the short at a file position past the word bytes
+     */
+    private short getShort(long position) {
+        position -= dataStart;
+        return data[(int) (position / SLICE_SIZE)].getShort((int) (position % SLICE_SIZE));
+    }
+
+    /**
+     * Reads the int at a file position past the word bytes
+     */
+    private int getInt(long position) {
+        position -= dataStart;
+        return data[(int) (position / SLICE_SIZE)].getInt((int) (position % SLICE_SIZE));
+    }
+
+    /**
+     * Reads the long at a file position past the word bytes
+     */
+    private long getLong(long position) {
+        position -= dataStart;
+        return data[(int) (position / SLICE_SIZE)].getLong((int) (position % SLICE_SIZE));
+    }
+
+    /**
+     * Finds the id of word by a binary search of the mapped words. An ASCII word is its own
+     * UTF-8 encoding, so it is compared char by char without being encoded.
+     *
+     * @param word the word to look up
+     * @return int the id of word, or -1 if it is not in the table
+     */
+    int id(String word) {
+        boolean ascii = true;
+        for (int i = 0; i < word.length() && ascii; i++)
+            ascii = word.charAt(i) < 0x80;
+        byte[] key = ascii ? null : word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = ascii ? compareWord(mid, word) : compareWord(mid, key);
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return SearchTree.NONE;
+    }
+
+    /**
+     * Decodes the word with the given id
+     */
+    private String word(int id) {
+        int from = words.getInt(HEADER + 4 * id);
+        int to = words.getInt(HEADER + 4 * (id + 1));
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = words.get(wordStart + from + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the mapped word with the given id to key, as unsigned bytes
+     */
+    private int compareWord(int id, byte[] key) {
+        int from = wordStart + words.getInt(HEADER + 4 * id);
+        int length = wordStart + words.getInt(HEADER + 4 * (id + 1)) - from;
+        for (int i = 0; i < length && i < key.length; i++) {
+            int cmp = Integer.compare(words.get(from + i) & 0xff, key[i] & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Compares the mapped word with the given id to an ASCII word, as unsigned bytes
+     */
+    private int compareWord(int id, String word) {
+        int from = wordStart + words.getInt(HEADER + 4 * id);
+        int length = wordStart + words.getInt(HEADER + 4 * (id + 1)) - from;
+        for (int i = 0; i < length && i < word.length(); i++) {
+            int cmp = Integer.compare(words.get(from + i) & 0xff, word.charAt(i));
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(length, word.length());
+    }
+
+    /**
+     * Compares two words as unsigned bytes, the order of the mapped word table
+     */
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            int cmp = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.function.Consumer;
+
+/**
+ * Reads the neighbors of a vertex without the view or copy that
+ * {@link GraphADT#getNeighbors(Object)} returns, for graphs that can offer it, see
+ * {@link Graph} and {@link ConcurrentGraph}.
+ *
+ * @param <E> type of a vertex
+ */
+interface NeighborAccess<E> {
+
+    /**
+     * Calls action with each neighbor of a vertex
+     *
+     * @param vertex the vertex
+     * @param action called once per neighbor
+     * @return true if vertex exists, false if it is null or not in the graph
+     */
+    boolean forEachNeighbor(E vertex, Consumer<? super E> action);
+
+    /**
+     * Returns the number of neighbors of a vertex
+     *
+     * @param vertex the vertex
+     * @return int the number of neighbors, or -1 if vertex is null or not in the graph
+     */
+    int degree(E vertex);
+
+    /**
+     * Calls action with each neighbor of a vertex of any graph, through
+     * {@link #forEachNeighbor(Object, Consumer)} if the graph offers it and
+     * {@link GraphADT#getNeighbors(Object)} otherwise
+     *
+     * @param graph the graph
+     * @param vertex the vertex
+     * @param action called once per neighbor
+     * @return true if vertex exists, false if it is null or not in the graph
+     */
+    @SuppressWarnings("unchecked")
+    static <E> boolean visitNeighbors(GraphADT<E> graph, E vertex, Consumer<? super E> action) {
+        if (graph instanceof NeighborAccess)
+            return ((NeighborAccess<E>) graph).forEachNeighbor(vertex, action);
+        Iterable<E> neighbors = graph.getNeighbors(vertex);
+        if (neighbors == null)
+            return false;
+        for (E neighbor : neighbors)
+            action.accept(neighbor);
+        return true;
+    }
+}
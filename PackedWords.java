@@ -0,0 +1,137 @@
+import java.util.List;
+
+/**
+ * A block of words of the same length, packed into fixed-width byte lanes so one word can be
+ * tested against all of them quickly.
+ *
+ * Each word takes stride longs, 8 chars per long, one char per byte lane, with unused lanes
+ * zero. Comparing a word with a candidate XORs their longs, so a lane is nonzero exactly where
+ * the chars differ, and counts the nonzero lanes of all 8 chars at once:
+ * 	1. (x & 0x7F..7F) + 0x7F..7F sets the high bit of every lane whose low 7 bits are nonzero,
+ * 	   without carrying into the next lane
+ * 	2. OR-ing x adds the lanes whose only set bit is the high bit
+ * 	3. masking with 0x80..80 keeps one bit per differing lane, and bitCount counts them
+ * A candidate is adjacent when exactly one lane differs over all its longs.
+ *
+ * Only chars up to 0xFF fit a lane. A block holding any other char keeps the words as Strings
+ * and compares them one char at a time with {@link WordProcessor#isAdjacent(String, String)}.
+ *
+ * Graph building does not use these blocks. {@link EdgeFinder} only checks the words sharing a
+ * substitution pattern or deletion key with the new word, a handful per word, where scanning
+ * every word of the same length would cost more than it saves. The blocks are measured against
+ * the char-by-char scan in {@link Benchmarks}.
+ *
+ * Not thread safe, as a query is packed into a buffer of the block; each thread keeps its own.
+ */
+class PackedWords {
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    // length of every word in the block
+    private int length;
+    // number of longs per word
+    private int stride;
+    // the packed words, word i in lanes[i * stride, (i + 1) * stride)
+    private long[] lanes;
+    // the words, only compared directly if they could not be packed
+    private String[] words;
+    private boolean packed;
+    // the packed query of findAdjacent, when it takes more than one long
+    private long[] query;
+
+    /**
+     * Packs a block of words of the same length
+     *
+     * @param words the words, none null
+     * @throws IllegalArgumentException if the words do not all have the same length
+     */
+    PackedWords(List<String> words) {
+        this.words = words.toArray(new String[0]);
+        this.length = this.words.length == 0 ? 0 : this.words[0].length();
+        this.stride = (length + 7) >>> 3;
+        this.packed = true;
+        for (String word : this.words) {
+            if (word.length() != length)
+                throw new IllegalArgumentException("words of length " + word.length()
+                                + " and " + length + " in one block");
+            for (int i = 0; i < length && packed; i++)
+                packed = word.charAt(i) <= 0xFF;
+        }
+        if (packed) {
+            lanes = new long[this.words.length * stride];
+            query = new long[stride];
+            for (int i = 0; i < this.words.length; i++)
+                pack(this.words[i], lanes, i * stride);
+        }
+    }
+
+    /**
+     * Finds the words of the block that differ from word by exactly 1 char replacement. The
+     * indices of the adjacent words are written to matches in order.
+     *
+     * @param word the word to test, of the block's length
+     * @param matches receives the indices of the adjacent words, as long as the block
+     * @return int the number of adjacent words, 0 if word has a different length
+     */
+    int findAdjacent(String word, int[] matches) {
+        if (word == null || word.length() != length)
+            return 0;
+        if (!packed || !fits(word))
+            return WordProcessor.findAdjacent(word, words, 0, words.length, matches);
+        int count = 0;
+        if (stride == 1) {
+            // the common case of words of up to 8 chars, one long per candidate
+            long lane = pack(word, 0);
+            for (int i = 0; i < lanes.length; i++)
+                if (differingLanes(lane ^ lanes[i]) == 1)
+                    matches[count++] = i;
+            return count;
+        }
+        pack(word, query, 0);
+        for (int i = 0, base = 0; i < words.length; i++, base += stride) {
+            int differing = 0;
+            for (int k = 0; k < stride && differing <= 1; k++)
+                differing += differingLanes(query[k] ^ lanes[base + k]);
+            if (differing == 1)
+                matches[count++] = i;
+        }
+        return count;
+    }
+
+    /**
+     * Counts the nonzero byte lanes of x
+     */
+    private static int differingLanes(long x) {
+        return Long.bitCount((((x & LOW_BITS) + LOW_BITS) | x) & HIGH_BITS);
+    }
+
+    /**
+     * Checks if every char of word fits in a byte lane
+     */
+    private static boolean fits(String word) {
+        for (int i = 0; i < word.length(); i++)
+            if (word.charAt(i) > 0xFF)
+                return false;
+        return true;
+    }
+
+    /**
+     * Packs word into stride longs of lanes, starting at offset
+     */
+    private static void pack(String word, long[] lanes, int offset) {
+        for (int k = 0; k * 8 < word.length(); k++)
+            lanes[offset + k] = pack(word, k);
+    }
+
+    /**
+     * Packs chars [8 * k, 8 * k + 8) of word into one long, the first char in the lowest lane
+     */
+    private static long pack(String word, int k) {
+        long lane = 0;
+        int end = Math.min(word.length(), 8 * k + 8);
+        for (int i = end - 1; i >= 8 * k; i--)
+            lane = (lane << 8) | word.charAt(i);
+        return lane;
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shortest path data computed on demand. The first query from a source runs a breadth first
+ * search from it, and the resulting {@link SearchTree} is kept in a least recently used cache
+ * bounded by a number of sources and a number of bytes.
+ *
+ * Queries may come from several threads. A search runs outside the cache lock, so two threads
+ * missing on the same source at once may both search it.
+ */
+class PathCache implements ShortestPaths {
+
+    // the graph the trees belong to
+    private IntGraph graph;
+    // most trees the cache may hold
+    private int capacity;
+    // search trees by source id, least recently used first
+    private LinkedHashMap<Integer, SearchTree> trees;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache for graph. The number of trees kept is the smaller of the two
+     * limits, but at least 1; a limit that is not positive is ignored.
+     *
+     * @param graph the graph to compute paths in
+     * @param maxSources most search trees to keep
+     * @param maxBytes most bytes the kept search trees may hold
+     */
+    PathCache(IntGraph graph, int maxSources, long maxBytes) {
+        this.graph = graph;
+        long capacity = maxSources > 0 ? maxSources : Integer.MAX_VALUE;
+        if (maxBytes > 0)
+            capacity = Math.min(capacity, maxBytes / SearchTree.rowBytes(graph.size()));
+        this.capacity = (int) Math.max(1, capacity);
+        this.trees = new LinkedHashMap<Integer, SearchTree>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SearchTree> eldest) {
+                if (size() <= PathCache.this.capacity)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the search tree of source, searching and caching it on a miss
+     *
+     * @param source id of the source vertex
+     * @return SearchTree the tree of source
+     */
+    private SearchTree tree(int source) {
+        synchronized (this) {
+            SearchTree tree = trees.get(source);
+            if (tree != null) {
+                hits++;
+                return tree;
+            }
+            misses++;
+        }
+        SearchTree tree = SearchTree.search(graph, source);
+        synchronized (this) {
+            trees.put(source, tree);
+        }
+        return tree;
+    }
+
+    @Override
+    public int getDistance(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        // a search from source could never reach a word of another component
+        if (source < 0 || target < 0 || !graph.connected(source, target))
+            return SearchTree.NONE;
+        return tree(source).distance[target];
+    }
+
+    @Override
+    public List<String> getPath(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        if (source < 0 || target < 0 || !graph.connected(source, target))
+            return null;
+        SearchTree tree = tree(source);
+        if (tree.distance[target] == SearchTree.NONE)
+            return null;
+        return SearchTree.path(graph, tree.predecessor, target);
+    }
+
+    /**
+     * Counts as one hit or miss for the whole batch, and neither if no target is in the
+     * source's component
+     */
+    @Override
+    public void getDistances(String source, String[] targets, int[] results) {
+        int id = graph.id(source);
+        boolean search = id >= 0 && SearchTree.reachesAny(graph, id, targets);
+        SearchTree.distances(graph, search ? tree(id).distance : null, targets, results);
+    }
+
+    /**
+     * Counts as one hit or miss for the whole batch, and neither if no target is in the
+     * source's component
+     */
+    @Override
+    public List<List<String>> getPaths(String source, String[] targets) {
+        int id = graph.id(source);
+        if (id < 0 || !SearchTree.reachesAny(graph, id, targets))
+            return SearchTree.paths(graph, null, null, targets);
+        SearchTree tree = tree(id);
+        return SearchTree.paths(graph, tree.distance, tree.predecessor, targets);
+    }
+
+    /**
+     * Returns the number of bytes held by the rows of the trees currently cached
+     *
+     * @return long number of bytes
+     */
+    @Override
+    public synchronized long getFootprint() {
+        return trees.size() * SearchTree.rowBytes(graph.size());
+    }
+
+    /**
+     * Returns the number of queries answered from a cached tree
+     *
+     * @return long number of hits
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries that had to search their source
+     *
+     * @return long number of misses
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of trees dropped to stay within the limits
+     *
+     * @return long number of evictions
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+}
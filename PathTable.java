@@ -0,0 +1,463 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All-pairs shortest path data for a graph of words, stored in primitive arrays and partitioned
+ * by connected component.
+ *
+ * A source can only reach the words of its own component, so each component gets tables of its
+ * own: its words are numbered 0 .. n-1 within it, and each source's breadth first search fills
+ * one row of a short distance matrix and one row of an int predecessor matrix, both n long and
+ * indexed by the target's local number. The tables take the sum of the squared component sizes
+ * instead of V^2, and a search only ever visits its own component. Components are numbered
+ * largest first, see {@link #sources()}. A row is only written by the search for its own
+ * source, so rows can be computed from different threads.
+ *
+ * When the graph gains words and edges, {@link #update(PathTable, IntGraph)} repairs only the
+ * rows the new edges can shorten, even where components are joined.
+ */
+class PathTable implements ShortestPaths {
+
+    // the graph the rows belong to
+    private IntGraph graph;
+    // component[id] is the number of the partition holding id
+    private int[] component;
+    // local[id] is the number of id within its partition
+    private int[] local;
+    // the partitions, largest first
+    private Partition[] partitions;
+
+    /**
+     * The words of one connected component and their tables, all by local number
+     */
+    private static class Partition {
+        // members[i] is the id of the word numbered i
+        private int[] members;
+        // distance[source][target]
+        private short[][] distance;
+        // predecessor[source][target], SearchTree.NONE for the source
+        private int[][] predecessor;
+
+        private Partition(int[] members) {
+            this.members = members;
+            this.distance = new short[members.length][];
+            this.predecessor = new int[members.length][];
+        }
+    }
+
+    /**
+     * Creates a table for graph. No rows are computed yet.
+     *
+     * @param graph the graph to compute paths in
+     */
+    PathTable(IntGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Creates a table for graph, partitioned by its components. Within a component the words of
+     * each partition of previous come first, a larger partition before a smaller one and each in
+     * its earlier order, and the words new to the graph last. The largest earlier partition of
+     * a component then keeps its local numbers.
+     *
+     * @param graph the graph to compute paths in
+     * @param previous a table for an earlier copy of graph, or null
+     */
+    private PathTable(IntGraph graph, PathTable previous) {
+        this.graph = graph;
+        int size = graph.size();
+        int[] order = new int[size];
+        int count = 0;
+        if (previous != null)
+            for (Partition old : previous.partitions)
+                for (int id : old.members)
+                    order[count++] = id;
+        for (int id = previous == null ? 0 : previous.size(); id < size; id++)
+            order[count++] = id;
+
+        // number the components by size, largest first, and ties by their first word in order
+        int[] sizes = new int[size];
+        int[] first = new int[size];
+        Arrays.fill(first, -1);
+        for (int i = 0; i < size; i++) {
+            int label = graph.component(order[i]);
+            if (first[label] < 0)
+                first[label] = i;
+            sizes[label]++;
+        }
+        long[] keys = new long[size];
+        int components = 0;
+        for (int label = 0; label < size; label++)
+            if (sizes[label] > 0)
+                keys[components++] = ((long) (size - sizes[label]) << 32) | first[label];
+        Arrays.sort(keys, 0, components);
+        int[] number = new int[size];
+        this.partitions = new Partition[components];
+        for (int c = 0; c < components; c++) {
+            int label = graph.component(order[(int) keys[c]]);
+            number[label] = c;
+            partitions[c] = new Partition(new int[sizes[label]]);
+        }
+
+        // place the words in order, so each partition keeps the order they were listed in
+        this.component = new int[size];
+        this.local = new int[size];
+        int[] filled = new int[components];
+        for (int id : order) {
+            int c = number[graph.component(id)];
+            component[id] = c;
+            local[id] = filled[c];
+            partitions[c].members[filled[c]++] = id;
+        }
+    }
+
+    /**
+     * Returns the graph the table holds paths for
+     *
+     * @return IntGraph the graph
+     */
+    IntGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of vertices in the table
+     *
+     * @return int number of vertices
+     */
+    int size() {
+        return graph.size();
+    }
+
+    /**
+     * Lists every source, the words of the largest component first. Computing the rows in this
+     * order starts the longest work first, so threads taking sources from it finish together.
+     *
+     * @return int[] the ids of all vertices
+     */
+    int[] sources() {
+        int[] sources = new int[size()];
+        int count = 0;
+        for (Partition part : partitions)
+            for (int id : part.members)
+                sources[count++] = id;
+        return sources;
+    }
+
+    /**
+     * Returns the number of partitions, one per connected component, numbered largest first
+     *
+     * @return int number of partitions
+     */
+    int partitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Gets the words of a partition
+     *
+     * @param c number of the partition
+     * @return int[] the id of each word, by local number
+     */
+    int[] members(int c) {
+        return partitions[c].members;
+    }
+
+    /**
+     * Gets the distance row of a word of a partition
+     *
+     * @param c number of the partition
+     * @param source local number of the source word
+     * @return short[] the distance to each word of the partition by local number, or null if the
+     *         row is not computed
+     */
+    short[] distanceRow(int c, int source) {
+        return partitions[c].distance[source];
+    }
+
+    /**
+     * Gets the predecessor row of a word of a partition
+     *
+     * @param c number of the partition
+     * @param source local number of the source word
+     * @return int[] the local number of the predecessor of each word of the partition on its
+     *         shortest path from source, -1 for source; or null if the row is not computed
+     */
+    int[] predecessorRow(int c, int source) {
+        return partitions[c].predecessor[source];
+    }
+
+    /**
+     * Runs a breadth first search from source within its component and stores its distance and
+     * predecessor rows
+     *
+     * @param source id of the source vertex
+     */
+    void computeRow(int source) {
+        Partition part = partitions[component[source]];
+        int size = part.members.length;
+        short[] dist = new short[size];
+        int[] pred = new int[size];
+        Arrays.fill(dist, (short) SearchTree.NONE);
+        Arrays.fill(pred, SearchTree.NONE);
+        int[] queue = new int[size];
+        int head = 0, tail = 0;
+
+        dist[local[source]] = 0;
+        queue[tail++] = local[source];
+        while (head < tail) {
+            int node = queue[head++];
+            int next = dist[node] + 1;
+            if (next > Short.MAX_VALUE)
+                throw new IllegalStateException("shortest path longer than " + Short.MAX_VALUE);
+            for (int neighbor : graph.neighbors(part.members[node])) {
+                int successor = local[neighbor];
+                if (dist[successor] == SearchTree.NONE) {
+                    dist[successor] = (short) next;
+                    pred[successor] = node;
+                    queue[tail++] = successor;
+                }
+            }
+        }
+        part.distance[local[source]] = dist;
+        part.predecessor[local[source]] = pred;
+    }
+
+    /**
+     * Creates a table for graph, an extension of previous.graph, by reusing the rows of
+     * previous. Sources whose component is unchanged and that the new edges cannot bring closer
+     * to any vertex share their rows with previous, the other old sources get a repaired copy
+     * of their rows, and the new sources are searched from scratch.
+     *
+     * @param previous a fully computed table
+     * @param graph a copy of the graph extending previous's copy
+     * @return PathTable the updated table
+     */
+    static PathTable update(PathTable previous, IntGraph graph) {
+        PathTable table = new PathTable(graph, previous);
+        int[] newEdges = graph.getNewEdges();
+        for (int c = 0; c < previous.partitions.length; c++) {
+            Partition old = previous.partitions[c];
+            Partition part = table.partitions[table.component[old.members[0]]];
+            // the words of old keep their order, starting at offset
+            int offset = table.local[old.members[0]];
+            boolean same = part.members.length == old.members.length;
+            for (int source = 0; source < old.members.length; source++) {
+                short[] dist = old.distance[source];
+                int[] pred = old.predecessor[source];
+                if (dist != null && same && !previous.affected(c, dist, newEdges)) {
+                    part.distance[source] = dist;
+                    part.predecessor[source] = pred;
+                } else if (dist != null) {
+                    table.repairRow(old.members[source], dist, pred, offset, newEdges);
+                } else {
+                    table.computeRow(old.members[source]);
+                }
+            }
+        }
+        for (int source = previous.size(); source < table.size(); source++)
+            table.computeRow(source);
+        return table;
+    }
+
+    /**
+     * Checks if any new edge shortens a path from the source of a row
+     *
+     * @param c the partition of the row
+     * @param dist the distance row
+     * @param newEdges the new edges, as pairs of ids
+     * @return true if some new edge joins a reachable vertex to one more than 1 step further
+     */
+    private boolean affected(int c, short[] dist, int[] newEdges) {
+        for (int i = 0; i < newEdges.length; i += 2) {
+            int u = distance(c, dist, newEdges[i]);
+            int v = distance(c, dist, newEdges[i + 1]);
+            if (u != v && (u == SearchTree.NONE || v == SearchTree.NONE || Math.abs(u - v) > 1))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the distance to a vertex of any table from a row of partition c, as unreachable if
+     * the vertex is not in it
+     */
+    private int distance(int c, short[] dist, int id) {
+        return id < size() && component[id] == c ? dist[local[id]] : SearchTree.NONE;
+    }
+
+    /**
+     * Copies the rows of source from an earlier table and lowers the distances the new edges
+     * shorten. The endpoints of new edges that get closer are seeds; they are visited in order
+     * of their new distance, merged with a breadth first search from the vertices lowered
+     * before them, so every vertex is lowered straight to its final distance. Only vertices
+     * whose distance changes are visited, and the words joined to the component since the
+     * earlier table all are.
+     *
+     * @param source id of the source vertex
+     * @param oldDist the earlier distance row
+     * @param oldPred the earlier predecessor row
+     * @param offset local number of the first word of the earlier row in this table
+     * @param newEdges the new edges, as pairs of ids
+     */
+    private void repairRow(int source, short[] oldDist, int[] oldPred, int offset, int[] newEdges) {
+        Partition part = partitions[component[source]];
+        int size = part.members.length;
+        short[] dist = new short[size];
+        int[] pred = new int[size];
+        Arrays.fill(dist, (short) SearchTree.NONE);
+        Arrays.fill(pred, SearchTree.NONE);
+        System.arraycopy(oldDist, 0, dist, offset, oldDist.length);
+        for (int i = 0; i < oldPred.length; i++)
+            if (oldPred[i] != SearchTree.NONE)
+                pred[offset + i] = oldPred[i] + offset;
+
+        // seeds as (distance << 32 | local number), so sorting orders them by distance
+        long[] seeds = new long[newEdges.length];
+        int count = 0;
+        for (int i = 0; i < newEdges.length; i += 2) {
+            if (component[newEdges[i]] != component[source])
+                continue;
+            int u = local[newEdges[i]], v = local[newEdges[i + 1]];
+            count = seed(dist, pred, u, v, seeds, count);
+            count = seed(dist, pred, v, u, seeds, count);
+        }
+        Arrays.sort(seeds, 0, count);
+
+        // a vertex is only queued when lowered, and is never lowered again once visited
+        int[] queue = new int[size];
+        int head = 0, tail = 0, next = 0;
+        while (next < count || head < tail) {
+            int node;
+            if (head == tail || (next < count && (int) (seeds[next] >>> 32) <= dist[queue[head]])) {
+                long seed = seeds[next++];
+                node = (int) seed;
+                // skip seeds lowered again since they were seeded
+                if (dist[node] != (int) (seed >>> 32))
+                    continue;
+            } else {
+                node = queue[head++];
+            }
+            int nextDistance = dist[node] + 1;
+            if (nextDistance > Short.MAX_VALUE)
+                throw new IllegalStateException("shortest path longer than " + Short.MAX_VALUE);
+            for (int neighbor : graph.neighbors(part.members[node])) {
+                int successor = local[neighbor];
+                if (dist[successor] == SearchTree.NONE || nextDistance < dist[successor]) {
+                    dist[successor] = (short) nextDistance;
+                    pred[successor] = node;
+                    queue[tail++] = successor;
+                }
+            }
+        }
+        part.distance[local[source]] = dist;
+        part.predecessor[local[source]] = pred;
+    }
+
+    /**
+     * Lowers v through the new edge (u, v) if that brings it closer to the source
+     *
+     * @return int the new number of seeds
+     */
+    private static int seed(short[] dist, int[] pred, int u, int v, long[] seeds, int count) {
+        if (dist[u] == SearchTree.NONE)
+            return count;
+        int through = dist[u] + 1;
+        if (dist[v] != SearchTree.NONE && through >= dist[v])
+            return count;
+        dist[v] = (short) through;
+        pred[v] = u;
+        seeds[count] = ((long) through << 32) | v;
+        return count + 1;
+    }
+
+    @Override
+    public int getDistance(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        // words of different components have no row in common
+        if (source < 0 || target < 0 || component[source] != component[target])
+            return SearchTree.NONE;
+        short[] dist = partitions[component[source]].distance[local[source]];
+        return dist == null ? SearchTree.NONE : dist[local[target]];
+    }
+
+    @Override
+    public List<String> getPath(String word1, String word2) {
+        int source = graph.id(word1);
+        int target = graph.id(word2);
+        if (source < 0 || target < 0 || component[source] != component[target])
+            return null;
+        Partition part = partitions[component[source]];
+        int[] pred = part.predecessor[local[source]];
+        return pred == null ? null : path(part, pred, local[target]);
+    }
+
+    @Override
+    public void getDistances(String source, String[] targets, int[] results) {
+        int id = graph.id(source);
+        short[] dist = id < 0 ? null : partitions[component[id]].distance[local[id]];
+        for (int i = 0; i < targets.length; i++) {
+            int target = dist == null ? SearchTree.NONE : graph.id(targets[i]);
+            results[i] = target < 0 || component[target] != component[id] ? SearchTree.NONE
+                            : dist[local[target]];
+        }
+    }
+
+    @Override
+    public List<List<String>> getPaths(String source, String[] targets) {
+        int id = graph.id(source);
+        Partition part = id < 0 ? null : partitions[component[id]];
+        int[] pred = part == null ? null : part.predecessor[local[id]];
+        List<List<String>> paths = new ArrayList<List<String>>(targets.length);
+        for (String word : targets) {
+            int target = pred == null ? SearchTree.NONE : graph.id(word);
+            if (target < 0 || component[target] != component[id])
+                paths.add(null);
+            else
+                paths.add(path(part, pred, local[target]));
+        }
+        return paths;
+    }
+
+    /**
+     * Gets the words on the path to target by walking a predecessor row back from target
+     *
+     * @param part the partition of the source and target
+     * @param pred the predecessor row of the source
+     * @param target local number of the target
+     * @return List<String> the path from the source to target
+     */
+    private List<String> path(Partition part, int[] pred, int target) {
+        ArrayList<String> path = new ArrayList<String>();
+        for (int node = target; node != SearchTree.NONE; node = pred[node])
+            path.add(graph.word(part.members[node]));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the exact number of heap bytes held by the partitions and their tables. Assumes
+     * the usual 64-bit JVM layout with compressed references: a 12 byte object header, a 16 byte
+     * array header, 4 byte references, and objects padded to a multiple of 8 bytes. Rows shared
+     * with an earlier table are counted here too.
+     *
+     * @return long number of bytes
+     */
+    @Override
+    public long getFootprint() {
+        long bytes = 2 * SearchTree.align(16 + 4L * size())
+                        + SearchTree.align(16 + 4L * partitions.length);
+        for (Partition part : partitions) {
+            long size = part.members.length;
+            // the object, its members and its two arrays of rows
+            bytes += SearchTree.align(12 + 3 * 4) + 3 * SearchTree.align(16 + 4 * size);
+            for (short[] row : part.distance)
+                if (row != null)
+                    bytes += SearchTree.rowBytes(row.length);
+        }
+        return bytes;
+    }
+}
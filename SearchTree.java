@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The breadth first search tree of one source vertex in an {@link IntGraph}: the distance and
+ * the predecessor of every vertex, indexed by id.
+ */
+class SearchTree {
+
+    /**
+     * Value stored for unreachable targets, and as the predecessor of the source itself
+     */
+    static final int NONE = -1;
+
+    // distance[target], NONE if target is unreachable
+    final short[] distance;
+    // predecessor[target], NONE for the source and unreachable targets
+    final int[] predecessor;
+
+    private SearchTree(short[] distance, int[] predecessor) {
+        this.distance = distance;
+        this.predecessor = predecessor;
+    }
+
+    /**
+     * Runs a breadth first search from source. Vertices are visited in order of their distance,
+     * so the first time a vertex is reached its distance and predecessor are final.
+     *
+     * @param graph the graph to search
+     * @param source id of the source vertex
+     * @return SearchTree the distances and predecessors from source
+     */
+    static SearchTree search(IntGraph graph, int source) {
+        int size = graph.size();
+        short[] dist = new short[size];
+        int[] pred = new int[size];
+        Arrays.fill(dist, (short) NONE);
+        Arrays.fill(pred, NONE);
+        // every vertex enters the queue at most once, so an array of size V is enough
+        int[] queue = new int[size];
+        int head = 0, tail = 0;
+
+        dist[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int node = queue[head++];
+            int next = dist[node] + 1;
+            if (next > Short.MAX_VALUE)
+                throw new IllegalStateException("shortest path longer than " + Short.MAX_VALUE);
+            for (int successor : graph.neighbors(node)) {
+                // a vertex already reached was reached by a path at least as short
+                if (dist[successor] == NONE) {
+                    dist[successor] = (short) next;
+                    pred[successor] = node;
+                    queue[tail++] = successor;
+                }
+            }
+        }
+        return new SearchTree(dist, pred);
+    }
+
+    /**
+     * Gets the words on the path to target by walking a predecessor row back from target
+     *
+     * @param graph the graph the row belongs to
+     * @param predecessor the predecessor row of the source
+     * @param target id of the target vertex, reachable from the source
+     * @return List<String> the path from the source to target
+     */
+    static List<String> path(IntGraph graph, int[] predecessor, int target) {
+        ArrayList<String> path = new ArrayList<String>();
+        for (int node = target; node != NONE; node = predecessor[node])
+            path.add(graph.word(node));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Checks if any of the targets is in the component of a source, so a search from the
+     * source would reach it
+     *
+     * @param graph the graph to search
+     * @param source id of the source vertex
+     * @param targets the target words
+     * @return boolean true if a target is connected to source
+     */
+    static boolean reachesAny(IntGraph graph, int source, String[] targets) {
+        for (String word : targets) {
+            int target = graph.id(word);
+            if (target >= 0 && graph.connected(source, target))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the distances to many targets from the distance row of one source
+     *
+     * @param graph the graph the row belongs to
+     * @param distance the distance row of the source, may be shorter than the number of
+     *        vertices, or null if the source is unknown
+     * @param targets the target words
+     * @param results receives the distance to each target, NONE if it is unknown or unreachable
+     */
+    static void distances(IntGraph graph, short[] distance, String[] targets, int[] results) {
+        for (int i = 0; i < targets.length; i++) {
+            int target = distance == null ? NONE : graph.id(targets[i]);
+            results[i] = target < 0 || target >= distance.length ? NONE : distance[target];
+        }
+    }
+
+    /**
+     * Gets the paths to many targets from the rows of one source
+     *
+     * @param graph the graph the rows belong to
+     * @param distance the distance row of the source, may be shorter than the number of
+     *        vertices, or null if the source is unknown
+     * @param predecessor the predecessor row of the source
+     * @param targets the target words
+     * @return List<List<String>> the path to each target, null if it is unknown or unreachable
+     */
+    static List<List<String>> paths(IntGraph graph, short[] distance, int[] predecessor,
+                    String[] targets) {
+        List<List<String>> paths = new ArrayList<List<String>>(targets.length);
+        for (String word : targets) {
+            int target = distance == null ? NONE : graph.id(word);
+            if (target < 0 || target >= distance.length || distance[target] == NONE)
+                paths.add(null);
+            else
+                paths.add(path(graph, predecessor, target));
+        }
+        return paths;
+    }
+
+    /**
+     * Returns the number of bytes held by the rows of one search tree over size vertices, with a
+     * 16 byte array header and arrays padded to a multiple of 8 bytes
+     *
+     * @param size number of vertices
+     * @return long number of bytes
+     */
+    static long rowBytes(long size) {
+        return align(16 + 2 * size) + align(16 + 4 * size);
+    }
+
+    /**
+     * Rounds a number of bytes up to the 8 byte object alignment
+     */
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.List;
+
+/**
+ * Answers shortest path queries between words of a graph. Implementations differ in how much
+ * of the path data they compute ahead of time and keep in memory.
+ */
+interface ShortestPaths {
+
+    /**
+     * Gets the distance of the shortest path between two different words
+     *
+     * @param word1 the source word
+     * @param word2 the target word
+     * @return int number of edges, or -1 if either word is unknown or word2 is unreachable
+     */
+    int getDistance(String word1, String word2);
+
+    /**
+     * Gets the words on the shortest path between two different words
+     *
+     * @param word1 the source word
+     * @param word2 the target word
+     * @return List<String> the path from word1 to word2, or null if either word is unknown or
+     *         word2 is unreachable
+     */
+    List<String> getPath(String word1, String word2);
+
+    /**
+     * Gets the distances from one word to many, looking up the source and reading or computing
+     * its data once for all of them
+     *
+     * @param source the source word
+     * @param targets the target words
+     * @param results receives the distance to each target as {@link #getDistance(String,
+     *        String)} would give it, 0 for the source itself
+     */
+    void getDistances(String source, String[] targets, int[] results);
+
+    /**
+     * Gets the paths from one word to many, looking up the source and reading or computing its
+     * data once for all of them
+     *
+     * @param source the source word
+     * @param targets the target words
+     * @return List<List<String>> the path to each target as {@link #getPath(String, String)}
+     *         would give it
+     */
+    List<List<String>> getPaths(String source, String[] targets);
+
+    /**
+     * Returns the number of bytes held by the stored distance and predecessor data
+     *
+     * @return long number of bytes
+     */
+    long getFootprint();
+}
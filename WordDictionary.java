@@ -0,0 +1,79 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every word a dense int id, in the order the words are first added. Ids never change
+ * and are never reused, so arrays indexed by id stay valid as the dictionary grows, and a word
+ * is hashed once when it is looked up rather than on every step of a search.
+ *
+ * Words are added by one thread at a time; lookups may run on any thread meanwhile.
+ */
+class WordDictionary {
+
+    // word -> id
+    private ConcurrentHashMap<String, Integer> ids;
+    // id -> word, replaced by a larger copy when full
+    private volatile String[] words;
+    // number of words added
+    private volatile int size;
+
+    /**
+     * Creates an empty dictionary
+     */
+    WordDictionary() {
+        this.ids = new ConcurrentHashMap<String, Integer>();
+        this.words = new String[16];
+    }
+
+    /**
+     * Gets the id of word, giving it the next id if it has none yet
+     *
+     * @param word the word, not null
+     * @return int the id of word
+     */
+    synchronized int intern(String word) {
+        Integer id = ids.get(word);
+        if (id != null)
+            return id;
+        int next = size;
+        String[] current = words;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, 2 * next);
+            words = current;
+        }
+        current[next] = word;
+        ids.put(word, next);
+        size = next + 1;
+        return next;
+    }
+
+    /**
+     * Gets the id of a word
+     *
+     * @param word the word
+     * @return int the id of word, or -1 if it was never added
+     */
+    int id(String word) {
+        Integer id = ids.get(word);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the word with the given id
+     *
+     * @param id an id given out by this dictionary
+     * @return String the word
+     */
+    String word(int id) {
+        return words[id];
+    }
+
+    /**
+     * Returns the number of words added, which is also the next id
+     *
+     * @return int number of words
+     */
+    int size() {
+        return size;
+    }
+}
@@ -15,8 +15,20 @@
 
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -26,6 +38,18 @@ import java.util.stream.Stream;
  */
 public class WordProcessor {
 	
+	/**
+	 * Size of the chunks a mapped dictionary file is split into, see {@link #getMappedWordStream(String)}
+	 */
+	private static final int MAPPED_CHUNK_SIZE = 1 << 24;
+	
+	/**
+	 * Whether upper-casing an ASCII letter in the default locale gives its ASCII capital, so a
+	 * word of ASCII bytes can be upper-cased without decoding it (not true in Turkish locales)
+	 */
+	private static final boolean ASCII_UPPER_CASE = "abcdefghijklmnopqrstuvwxyz".toUpperCase()
+			.equals("ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+	
 	/**
 	 * Gets a Stream of words from the filepath.
 	 * 
@@ -87,6 +111,154 @@ public class WordProcessor {
 		return wordStream;
 	}
 	
+	/**
+	 * Gets a Stream of words from the filepath like {@link #getWordStream(String)}, but reads the
+	 * file through a memory mapping instead of decoding it line by line.
+	 * 
+	 * The file is split into chunks of about 16MB that end on a line break, and each chunk is
+	 * mapped and scanned as bytes. Words made of ASCII bytes are trimmed and upper-cased on the
+	 * bytes and become a String in one step; any other line is decoded as UTF-8 and then trimmed
+	 * and upper-cased as Strings, so the words are the same as getWordStream's.
+	 * 
+	 * The chunks are parsed as the stream is consumed, and can be parsed in parallel by calling
+	 * parallel() on the stream. The words keep the order of the file either way.
+	 * 
+	 * @param filepath file path to the dictionary file
+	 * @return Stream<String> stream of words read from the filepath
+	 * @throws IOException exception resulting from accessing the filepath
+	 */
+	public static Stream<String> getMappedWordStream(String filepath) throws IOException {
+		return getMappedWordStream(filepath, MAPPED_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Gets a Stream of words from the filepath through a memory mapping, split into chunks of
+	 * about chunkSize bytes
+	 * 
+	 * @param filepath file path to the dictionary file
+	 * @param chunkSize number of bytes after which a chunk ends at the next line break
+	 * @return Stream<String> stream of words read from the filepath
+	 * @throws IOException exception resulting from accessing the filepath
+	 */
+	static Stream<String> getMappedWordStream(String filepath, int chunkSize) throws IOException {
+		List<MappedByteBuffer> chunks = new ArrayList<MappedByteBuffer>();
+		// a mapping stays valid after its channel is closed
+		try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long start = 0;
+			while (start < size) {
+				long end = lineStartAfter(channel, Math.min(start + chunkSize, size), size);
+				chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+				start = end;
+			}
+		}
+		return IntStream.range(0, chunks.size())
+				.mapToObj(i -> parseChunk(chunks.get(i)))
+				.flatMap(List::stream);
+	}
+	
+	/**
+	 * Finds where the first line starting at or after position begins
+	 * 
+	 * @param channel the file
+	 * @param position where to start looking
+	 * @param size size of the file
+	 * @return long the position just after the next line break, or size if there is none
+	 * @throws IOException exception resulting from reading the file
+	 */
+	private static long lineStartAfter(FileChannel channel, long position, long size) throws IOException {
+		if (position == size)
+			return size;
+		// the byte before position may itself end a line
+		position--;
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0)
+				return size;
+			for (int i = 0; i < read; i++) {
+				byte b = buffer.get(i);
+				if (b == '\n' || b == '\r')
+					return position + i + 1;
+			}
+			position += read;
+		}
+		return size;
+	}
+	
+	/**
+	 * Gets the trimmed, non-empty, upper-cased words of the lines in a chunk. A line ends at
+	 * '\n' or '\r', like in {@link java.io.BufferedReader#readLine()}; a "\r\n" pair leaves an
+	 * empty line between them, which is dropped like every other empty line.
+	 * 
+	 * @param chunk the mapped bytes
+	 * @return List<String> the words of the chunk in order
+	 */
+	private static List<String> parseChunk(MappedByteBuffer chunk) {
+		List<String> words = new ArrayList<String>();
+		// upper-cased bytes of the current ASCII word
+		byte[] scratch = new byte[64];
+		int limit = chunk.limit();
+		int i = 0;
+		while (i < limit) {
+			int start = i;
+			boolean ascii = true;
+			for (; i < limit; i++) {
+				byte b = chunk.get(i);
+				if (b == '\n' || b == '\r')
+					break;
+				if (b < 0)
+					ascii = false;
+			}
+			int end = i++;
+			
+			// String.trim() drops chars up to ' ', which in UTF-8 are exactly the bytes up to ' '
+			while (start < end && (chunk.get(start) & 0xff) <= ' ')
+				start++;
+			while (end > start && (chunk.get(end - 1) & 0xff) <= ' ')
+				end--;
+			if (start == end)
+				continue;
+			
+			if (ascii && ASCII_UPPER_CASE) {
+				int length = end - start;
+				if (scratch.length < length)
+					scratch = new byte[Math.max(length, 2 * scratch.length)];
+				for (int j = 0; j < length; j++) {
+					byte b = chunk.get(start + j);
+					scratch[j] = b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+				}
+				words.add(new String(scratch, 0, length, StandardCharsets.ISO_8859_1));
+			} else {
+				words.add(decode(chunk, start, end).toUpperCase());
+			}
+		}
+		return words;
+	}
+	
+	/**
+	 * Decodes bytes of a chunk as UTF-8, failing on malformed input like Files.lines()
+	 * 
+	 * @param chunk the mapped bytes
+	 * @param start index of the first byte
+	 * @param end index after the last byte
+	 * @return String the decoded text
+	 */
+	private static String decode(MappedByteBuffer chunk, int start, int end) {
+		ByteBuffer bytes = chunk.duplicate();
+		bytes.position(start).limit(end);
+		try {
+			CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(bytes);
+			return chars.toString();
+		} catch (CharacterCodingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
 	/**
 	 * Adjacency between word1 and word2 is defined by:
 	 * if the difference between word1 and word2 is of
@@ -100,6 +272,9 @@ public class WordProcessor {
 	 *  
 	 * Note: if word1 is equal to word2, they are not adjacent
 	 * 
+	 * Each check is a single pass over the words that stops at the second difference, and
+	 * allocates nothing.
+	 * 
 	 * @param word1 first word
 	 * @param word2 second word
 	 * @return true if word1 and word2 are adjacent else false
@@ -109,23 +284,173 @@ public class WordProcessor {
 			return false;
 		if(word2==null)
 			return false;
-		if(word1==word2) {
+		return isAdjacent(word1, 0, word1.length(), word2, 0, word2.length());
+	}
+	
+	/**
+	 * Same as {@link #isAdjacent(String, String)}, for words held in char arrays
+	 * 
+	 * @param word1 first word
+	 * @param word2 second word
+	 * @return true if word1 and word2 are adjacent else false
+	 */
+	public static boolean isAdjacentChars(char[] word1, char[] word2) {
+		if(word1==null || word2==null)
+			return false;
+		return isAdjacent(word1, 0, word1.length, word2, 0, word2.length);
+	}
+	
+	/**
+	 * Same as {@link #isAdjacent(String, String)}, for words held as single byte chars (such as
+	 * ASCII or ISO-8859-1) in ranges of byte arrays, so words can be compared where they were
+	 * read without decoding them
+	 * 
+	 * @param bytes1 array holding the first word
+	 * @param offset1 index of the first word's first byte
+	 * @param length1 number of bytes of the first word
+	 * @param bytes2 array holding the second word
+	 * @param offset2 index of the second word's first byte
+	 * @param length2 number of bytes of the second word
+	 * @return true if the words are adjacent else false
+	 */
+	public static boolean isAdjacentBytes(byte[] bytes1, int offset1, int length1, byte[] bytes2,
+			int offset2, int length2) {
+		if(bytes1==null || bytes2==null)
 			return false;
+		return isAdjacent(bytes1, offset1, length1, bytes2, offset2, length2);
+	}
+	
+	/**
+	 * The check behind every form of isAdjacent(), for words held in a String, a char array or a
+	 * byte array, see {@link #charAt(Object, int)}
+	 * 
+	 * @param word1 holds the first word
+	 * @param offset1 index of the first word's first char
+	 * @param length1 number of chars of the first word
+	 * @param word2 holds the second word
+	 * @param offset2 index of the second word's first char
+	 * @param length2 number of chars of the second word
+	 * @return true if the words are adjacent else false
+	 */
+	private static boolean isAdjacent(Object word1, int offset1, int length1, Object word2,
+			int offset2, int length2) {
+		int lengthDiff = length1-length2;
+		if(lengthDiff == 0) {
+			return compareEqualLengthWords(word1, offset1, word2, offset2, length1);
 		}
-		int lengthDiff = word1.length()-word2.length();
-		if(Math.abs(lengthDiff)>1) {
-			return false;
+		else if(lengthDiff == 1) {
+			return compareDifferentLengthWords(word1, offset1, word2, offset2, length2); // Changes the order of arguments based on which word is longer
 		}
-		if(lengthDiff == 0) {
-			return compareEqualLengthWords(word1, word2);
+		else if(lengthDiff == -1) {
+			return compareDifferentLengthWords(word2, offset2, word1, offset1, length1);
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets a char of a word held in a String, a char array or a byte array of single byte
+	 * chars. Nothing is wrapped or copied, so the checks allocate nothing whatever holds the
+	 * words.
+	 * 
+	 * @param word the String, char[] or byte[] holding the word
+	 * @param index index of the char in word
+	 * @return char the char
+	 */
+	private static char charAt(Object word, int index) {
+		if(word instanceof String)
+			return ((String) word).charAt(index);
+		if(word instanceof char[])
+			return ((char[]) word)[index];
+		return (char) (((byte[]) word)[index] & 0xff);
+	}
+	
+	/**
+	 * Tests word against a block of candidates at once, see {@link #isAdjacent(String, String)}.
+	 * The indices of the adjacent candidates are written to matches in order, so nothing is
+	 * allocated and matches can be reused between calls.
+	 * 
+	 * @param word the word to test
+	 * @param candidates the words to test it against, null entries are never adjacent
+	 * @param from index of the first candidate to test
+	 * @param to index after the last candidate to test
+	 * @param matches receives the indices of the adjacent candidates, at least to - from long
+	 * @return int the number of adjacent candidates
+	 */
+	public static int findAdjacent(String word, String[] candidates, int from, int to, int[] matches) {
+		if(word==null)
+			return 0;
+		int count = 0;
+		for(int i=from;i<to;i++) {
+			if(isAdjacent(word, candidates[i]))
+				matches[count++] = i;
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets the edit (Levenshtein) distance between two words: the fewest char replacements,
+	 * additions and deletions that turn word1 into word2. Adjacent words, see
+	 * {@link #isAdjacent(String, String)}, are exactly the words at distance 1, so the edit
+	 * distance of two words is never more than the number of edges between them in the graph.
+	 * 
+	 * Only distances up to limit are computed exactly. The words' common prefix and suffix are
+	 * skipped, only the cells of the table within limit of its diagonal are filled in, and the
+	 * table is abandoned as soon as a whole row exceeds limit, so this takes
+	 * O(limit * length) time rather than O(length^2). To compare many words with the same word,
+	 * see {@link EditDistance}.
+	 * 
+	 * @param word1 first word, not null
+	 * @param word2 second word, not null
+	 * @param limit largest distance to compute exactly, at least 0
+	 * @return int the edit distance, or limit + 1 if it is more than limit
+	 */
+	public static int editDistance(String word1, String word2, int limit) {
+		// the longer word goes down the table and the shorter one across it
+		if(word1.length()<word2.length()) {
+			String swap = word1;
+			word1 = word2;
+			word2 = swap;
 		}
-		else if(lengthDiff>0) {
-			return compareDifferentLengthWords(word1, word2); // Changes the order of arguments based on which word is longerS
+		if(word1.length()-word2.length()>limit)
+			return limit+1;
+		//a common prefix and suffix cost nothing
+		int start = 0;
+		while(start<word2.length() && word1.charAt(start)==word2.charAt(start))
+			start++;
+		int end1 = word1.length(), end2 = word2.length();
+		while(end2>start && word1.charAt(end1-1)==word2.charAt(end2-1)) {
+			end1--;
+			end2--;
 		}
-		else {
-			return compareDifferentLengthWords(word2, word1);
-		}	
-
+		int rows = end1-start, columns = end2-start;
+		if(columns==0)
+			return rows;
+		
+		//row[j] is the distance between the first i chars left of word1 and the first j left of word2;
+		//cells further than limit from the diagonal are never filled in, as they exceed limit
+		int[] row = new int[columns+1];
+		for(int j=0;j<=columns;j++)
+			row[j] = j;
+		for(int i=1;i<=rows;i++) {
+			int from = Math.max(1, i-limit), to = Math.min(columns, i+limit);
+			int diagonal = row[from-1];
+			int left = from==1 ? i : limit+1;
+			row[from-1] = left;
+			int min = left;
+			char c = word1.charAt(start+i-1);
+			for(int j=from;j<=to;j++) {
+				int up = row[j];
+				int value = Math.min(diagonal+(c==word2.charAt(start+j-1) ? 0 : 1), Math.min(up, left)+1);
+				diagonal = up;
+				row[j] = value;
+				left = value;
+				min = Math.min(min, value);
+			}
+			//the distances never fall along a diagonal, so once a whole row exceeds limit the end does too
+			if(min>limit)
+				return limit+1;
+		}
+		return Math.min(row[columns], limit+1);
 	}
 	
 	/**
@@ -140,20 +465,20 @@ public class WordProcessor {
 	 *  
 	 * Note: if word1 is equal to word2, they are not adjacent
 	 * 
-	 * @param word1 first word
-	 * @param word2 second word
+	 * @param word1 holds the first word
+	 * @param offset1 index of the first word's first char
+	 * @param word2 holds the second word
+	 * @param offset2 index of the second word's first char
+	 * @param length number of chars of both words
 	 * @return true if word1 and word2 are adjacent else false
 	 */
-	private static boolean compareEqualLengthWords(String word1, String word2) {
+	private static boolean compareEqualLengthWords(Object word1, int offset1, Object word2, int offset2, int length) {
 		int charDiffCount = 0;
-		for(int i=0;i<word1.length();i++) {
-			if(!(word1.charAt(i)==(word2.charAt(i)))) {
-				charDiffCount++;
-			}
-			if(charDiffCount>1) //Checks if the number of characters that are different b/w the words is more than 1
+		for(int i=0;i<length;i++) {
+			if(charAt(word1, offset1+i)!=charAt(word2, offset2+i) && ++charDiffCount>1) //Stops at the second character that is different b/w the words
 				return false;
 		}
-		return true;
+		return charDiffCount==1;
 	}
 	
 	/**
@@ -167,36 +492,25 @@ public class WordProcessor {
 	 * else
 	 *  word1 and word2 are not adjacent
 	 *  
-	 * Note: if word1 is equal to word2, they are not adjacent
+	 * The words match up to their first difference, which must be the extra char of word1; after
+	 * it every char of word1 must match the char of word2 one position earlier.
 	 * 
-	 * @param word1 first word (longer word)
-	 * @param word2 second word (shorter word)
+	 * @param word1 holds the first word (longer word, by exactly 1 char)
+	 * @param offset1 index of the first word's first char
+	 * @param word2 holds the second word (shorter word)
+	 * @param offset2 index of the second word's first char
+	 * @param length number of chars of the shorter word
 	 * @return true if word1 and word2 are adjacent else false
 	 */
-	private static boolean compareDifferentLengthWords(String word1, String word2) {
-		int sameCharCount = 0, wordOneIndex =0;
-		for(int ignoreIndex=0;ignoreIndex<word1.length();ignoreIndex++) {
-			
-			sameCharCount = 0;
-			wordOneIndex = 0;
-			for(int wordTwoIndex = 0; wordTwoIndex < word2.length(); wordTwoIndex++) { // One character from word 1 is blocked at each iteration and the rest of chars are compared with word2
-				if(wordOneIndex == ignoreIndex) {
-					wordOneIndex++;
-				}
-				if(!(word1.charAt(wordOneIndex)==(word2.charAt(wordTwoIndex)))) {
-					break;
-				}
-				else {
-					sameCharCount++;
-				}
-				wordOneIndex++;
-			}
-			if(sameCharCount==word2.length()) {
-				return true;
-			}
+	private static boolean compareDifferentLengthWords(Object word1, int offset1, Object word2, int offset2, int length) {
+		int i = 0;
+		while(i<length && charAt(word1, offset1+i)==charAt(word2, offset2+i))
+			i++;
+		for(;i<length;i++) {
+			if(charAt(word1, offset1+i+1)!=charAt(word2, offset2+i))
+				return false;
 		}
-
-		return false;
+		return true;
 	}
 	
 }